@@ -0,0 +1,28 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.BookingDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    public String state;
+
+    @Benchmark
+    public List<BookingDto> bookerBookings(ShareItState app) {
+        return app.bookingService.getAllBookerBookings(app.randomUser(), state, 0, 20);
+    }
+
+    @Benchmark
+    public List<BookingDto> ownerBookings(ShareItState app) {
+        return app.bookingService.getAllBookerItemsBooking(app.randomUser(), state, 0, 20);
+    }
+}
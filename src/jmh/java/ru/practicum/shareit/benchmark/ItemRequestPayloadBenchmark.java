@@ -0,0 +1,66 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialized size of one /requests/all page. payloadBytes should grow linearly with requests x itemsPerRequest,
+ * not with requests x (requests x itemsPerRequest) as it did when every request carried the whole page's items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemRequestPayloadBenchmark {
+    @Param({"20", "100"})
+    public int requests;
+
+    @Param({"1", "5"})
+    public int itemsPerRequest;
+
+    final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    List<ItemRequest> page;
+    List<ItemDto> requestItems;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long payloadBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        page = new ArrayList<>(requests);
+        List<Item> items = new ArrayList<>(requests * itemsPerRequest);
+        long itemId = 1;
+        for (long i = 1; i <= requests; i++) {
+            page.add(new ItemRequest(i, "request" + i, 1L, now.minusMinutes(i)));
+            for (int j = 0; j < itemsPerRequest; j++, itemId++) {
+                items.add(new Item(itemId, "item" + itemId, "desc", true, 2L, i));
+            }
+        }
+        requestItems = ItemMapper.toItemDtoList(items);
+    }
+
+    @Benchmark
+    public byte[] serializeRequestPage(Payload payload) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(ItemRequestMapper.toiItemRequestDtoList(page, requestItems));
+        payload.payloadBytes = json.length;
+        return json;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.paging.KeysetCursor;
+import ru.practicum.shareit.request.ItemRequestDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemRequestServiceBenchmark {
+    @Param({"0", "500"})
+    public int from;
+
+    KeysetCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp(ShareItState app) {
+        List<ItemRequestDto> page = app.itemRequestService.get(app.user(app.users), from, 1);
+        cursor = page.isEmpty() ? null : new KeysetCursor(page.get(0).getCreated(), page.get(0).getId());
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> offsetPage(ShareItState app) {
+        return app.itemRequestService.get(app.randomUser(), from, 20);
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> cursorPage(ShareItState app) {
+        return cursor == null
+                ? app.itemRequestService.get(app.randomUser(), 0, 20)
+                : app.itemRequestService.get(app.randomUser(), cursor, 20);
+    }
+}
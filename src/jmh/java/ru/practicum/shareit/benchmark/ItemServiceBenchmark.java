@@ -0,0 +1,35 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.item.ItemBookingModel;
+import ru.practicum.shareit.item.ItemDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemServiceBenchmark {
+    @Param({"drill", "ill", "cordless kayak"})
+    public String text;
+
+    @Benchmark
+    public List<ItemBookingModel> findAllItemsByOwner(ShareItState app) {
+        return app.itemService.findAllItemsByOwner(app.randomUser(), 0, 20);
+    }
+
+    @Benchmark
+    public ItemBookingModel findItemByOwner(ShareItState app) {
+        long ownerId = app.randomUserId();
+        return app.itemService.findItemById(app.user(ownerId), (ownerId - 1) * app.itemsPerUser + 1);
+    }
+
+    @Benchmark
+    public List<ItemDto> search(ShareItState app) {
+        return app.itemService.search(text, 0, 20);
+    }
+}
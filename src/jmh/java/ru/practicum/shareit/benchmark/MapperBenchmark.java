@@ -0,0 +1,69 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingDto;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestDto;
+import ru.practicum.shareit.request.ItemRequestMapper;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"20", "1000"})
+    public int size;
+
+    List<Booking> bookings;
+    List<Item> items;
+    List<ItemRequest> requests;
+    List<ItemDto> requestItems;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        User booker = new User(1L, "John", "john.doe@mail.com");
+        bookings = new ArrayList<>(size);
+        items = new ArrayList<>(size);
+        requests = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Item item = new Item(i, "item" + i, "desc", true, 2L, i % 5 == 0 ? null : i % (size / 4 + 1) + 1);
+            items.add(item);
+            bookings.add(new Booking(i, now.plusDays(i), now.plusDays(i + 1), item, booker, BookingStatus.APPROVED));
+            requests.add(new ItemRequest(i, "request" + i, 1L, now.minusMinutes(i)));
+        }
+        requestItems = ItemMapper.toItemDtoList(items.stream()
+                .filter(item -> item.getRequestId() != null)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<BookingDto> toBookingDto() {
+        return bookings.stream().map(BookingMapper::toBookingDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ItemDto> toItemDtoList() {
+        return ItemMapper.toItemDtoList(items);
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> toItemRequestDtoList() {
+        return ItemRequestMapper.toiItemRequestDtoList(requests, requestItems);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingTimeline;
+import ru.practicum.shareit.dataset.DatasetSeeder;
+import ru.practicum.shareit.item.ItemAvailabilityIndex;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+public class ShareItState {
+    @Param({"1000"})
+    public int users;
+
+    @Param({"5"})
+    public int itemsPerUser;
+
+    @Param({"8"})
+    public int bookingsPerItem;
+
+    @Param({"false", "true"})
+    public boolean inMemoryIndexes;
+
+    ConfigurableApplicationContext context;
+    BookingService bookingService;
+    ItemService itemService;
+    ItemRequestService itemRequestService;
+    UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN",
+                        "shareit.search.index.enabled=" + inMemoryIndexes,
+                        "shareit.booking.timeline.enabled=" + inMemoryIndexes,
+                        "shareit.availability.index.enabled=" + inMemoryIndexes)
+                .run();
+        new DatasetSeeder(context.getBean(JdbcTemplate.class)).seed(users, itemsPerUser, bookingsPerItem);
+        if (inMemoryIndexes) {
+            context.getBean(ItemSearchIndex.class).rebuild();
+            context.getBean(BookingTimeline.class).rebuild();
+            context.getBean(ItemAvailabilityIndex.class).rebuild();
+        }
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+        itemRequestService = context.getBean(ItemRequestService.class);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(1, users + 1L);
+    }
+
+    User user(long id) {
+        return userService.getUserOptional(id);
+    }
+
+    User randomUser() {
+        return user(randomUserId());
+    }
+}
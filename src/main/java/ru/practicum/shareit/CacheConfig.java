@@ -0,0 +1,83 @@
+package ru.practicum.shareit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.util.concurrent.Callable;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+    public static final String USERS = "users";
+    public static final String ITEMS = "items";
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                return new CopyingCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+        String spec = cacheProperties.getCaffeine().getSpec();
+        if (spec != null) {
+            cacheManager.setCacheSpecification(spec);
+        }
+        cacheManager.setCacheNames(cacheProperties.getCacheNames());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    /**
+     * Cached entities are mutable and would otherwise be shared by every caller, so a setter on one
+     * request's copy (or Hibernate merging it) would leak into the cache. Store and hand out copies instead.
+     */
+    static class CopyingCaffeineCache extends CaffeineCache {
+        CopyingCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+            super(name, cache, allowNullValues);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            return copy(super.lookup(key));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return (T) copy(super.get(key, () -> (T) copy(valueLoader.call())));
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            super.put(key, copy(value));
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            ValueWrapper existing = super.putIfAbsent(key, copy(value));
+            return existing == null ? null : () -> copy(existing.get());
+        }
+
+        private static Object copy(Object value) {
+            if (value instanceof User) {
+                return ((User) value).toBuilder().build();
+            }
+            if (value instanceof Item) {
+                return ((Item) value).toBuilder().build();
+            }
+            return value;
+        }
+    }
+}
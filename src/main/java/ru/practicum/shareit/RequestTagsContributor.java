@@ -0,0 +1,49 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingState;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+
+@Component
+public class RequestTagsContributor implements WebMvcTagsContributor {
+    static final String NONE = "none";
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                 Throwable exception) {
+        return Tags.of(Tag.of("state", state(request.getParameter("state"))),
+                Tag.of("text", textLength(request.getParameter("text"))));
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return Tags.empty();
+    }
+
+    private static String state(String state) {
+        if (state == null) {
+            return NONE;
+        }
+        return Arrays.stream(BookingState.values())
+                .map(Enum::name)
+                .filter(state::equals)
+                .findFirst()
+                .orElse("UNKNOWN");
+    }
+
+    private static String textLength(String text) {
+        if (text == null) {
+            return NONE;
+        }
+        if (text.length() < 3) {
+            return "short";
+        }
+        return text.length() < 10 ? "medium" : "long";
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookingBatchResult {
+    int index;
+    BookingBatchStatus status;
+    BookingDto booking;
+    String error;
+
+    public static BookingBatchResult created(int index, BookingDto booking) {
+        return new BookingBatchResult(index, BookingBatchStatus.CREATED, booking, null);
+    }
+
+    public static BookingBatchResult rejected(int index, BookingBatchStatus status, String error) {
+        return new BookingBatchResult(index, status, null, error);
+    }
+}
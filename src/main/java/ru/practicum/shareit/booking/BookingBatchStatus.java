@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking;
+
+public enum BookingBatchStatus {
+    CREATED,
+    INVALID,
+    NOT_FOUND,
+    UNAVAILABLE,
+    OVERLAPPING
+}
@@ -1,49 +1,125 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.paging.KeysetCursor;
+import ru.practicum.shareit.user.SharerUser;
+import ru.practicum.shareit.user.User;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor
 public class BookingController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String NDJSON = "application/x-ndjson";
+
     private final BookingService bookingService;
+    private final BookingFeed bookingFeed;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
-    public BookingDto addBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public BookingDto addBooking(@SharerUser User booker,
                                  @RequestBody @Valid BookingRequest bookingRequest) {
-        return bookingService.addBooking(userId, bookingRequest);
+        return bookingService.addBooking(booker, bookingRequest);
+    }
+
+    @PostMapping("/batch")
+    public List<BookingBatchResult> addBookings(@SharerUser User booker,
+                                                @RequestBody List<BookingRequest> bookingRequests) {
+        return bookingService.addBookings(booker, bookingRequests);
     }
 
     @PatchMapping("/{bookingId}")
-    public BookingDto updateBookingStatus(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public BookingDto updateBookingStatus(@SharerUser User owner,
                                           @PathVariable("bookingId") Long bookingId,
                                           @RequestParam Boolean approved) {
-        return bookingService.updateBookingStatus(userId, bookingId, approved);
+        return bookingService.updateBookingStatus(owner, bookingId, approved);
+    }
+
+    @GetMapping(path = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@SharerUser User user) {
+        return bookingFeed.subscribe(user);
+    }
+
+    @GetMapping("/export")
+    public void exportUserBookings(@SharerUser User user, HttpServletResponse response) throws IOException {
+        export(response, consumer -> bookingService.exportBookerBookings(user, consumer));
+    }
+
+    @GetMapping("/owner/export")
+    public void exportUserItemsBookings(@SharerUser User owner, HttpServletResponse response) throws IOException {
+        export(response, consumer -> bookingService.exportBookerItemsBookings(owner, consumer));
     }
 
     @GetMapping("/{bookingId}")
-    public BookingDto getBookingById(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public BookingDto getBookingById(@SharerUser User user,
                                      @PathVariable("bookingId") Long bookingId) {
-        return bookingService.getBookingById(userId, bookingId);
+        return bookingService.getBookingById(user, bookingId);
     }
 
     @GetMapping
-    public List<BookingDto> getAllUserBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public List<BookingDto> getAllUserBookings(@SharerUser User user,
                                                @RequestParam(defaultValue = "ALL") String state,
                                                @RequestParam(value = "from", defaultValue = "0") int from,
-                                               @RequestParam(value = "size", defaultValue = "10") int size) {
-        return bookingService.getAllBookerBookings(userId, state, from, size);
+                                               @RequestParam(value = "size", defaultValue = "10") int size,
+                                               @RequestParam(value = "after", required = false) String after,
+                                               HttpServletResponse response) {
+        List<BookingDto> bookings = after == null
+                ? bookingService.getAllBookerBookings(user, state, from, size)
+                : bookingService.getAllBookerBookings(user, state, KeysetCursor.decode(after), size);
+        setNextCursor(response, bookings, size);
+        return bookings;
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getAllUserItemsBooking(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+    public List<BookingDto> getAllUserItemsBooking(@SharerUser User owner,
                                                    @RequestParam(defaultValue = "ALL") String state,
                                                    @RequestParam(value = "from", defaultValue = "0") int from,
-                                                   @RequestParam(value = "size", defaultValue = "10") int size) {
-        return bookingService.getAllBookerItemsBooking(ownerId, state, from, size);
+                                                   @RequestParam(value = "size", defaultValue = "10") int size,
+                                                   @RequestParam(value = "after", required = false) String after,
+                                                   HttpServletResponse response) {
+        List<BookingDto> bookings = after == null
+                ? bookingService.getAllBookerItemsBooking(owner, state, from, size)
+                : bookingService.getAllBookerItemsBooking(owner, state, KeysetCursor.decode(after), size);
+        setNextCursor(response, bookings, size);
+        return bookings;
+    }
+
+    private void export(HttpServletResponse response, Consumer<Consumer<BookingDto>> export) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        ServletOutputStream output = response.getOutputStream();
+        try {
+            export.accept(bookingDto -> {
+                try {
+                    output.write(objectMapper.writeValueAsBytes(bookingDto));
+                    output.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        output.flush();
+    }
+
+    private void setNextCursor(HttpServletResponse response, List<BookingDto> bookings, int size) {
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            BookingDto last = bookings.get(bookings.size() - 1);
+            response.setHeader(NEXT_CURSOR_HEADER, new KeysetCursor(last.getStart(), last.getId()).encode());
+        }
     }
 }
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.exception.UnavailableException;
+import ru.practicum.shareit.index.AfterCommit;
+import ru.practicum.shareit.user.User;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class BookingFeed {
+    static final String EVENT = "booking";
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final int queueCapacity;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Only created when the feed is enabled; every path that uses it is behind the enabled check.
+    private final ExecutorService sender;
+
+    public BookingFeed(@Value("${shareit.booking.feed.enabled:false}") boolean enabled,
+                       @Value("${shareit.booking.feed.timeout-ms:300000}") long timeoutMillis,
+                       @Value("${shareit.booking.feed.max-subscribers:10000}") int maxSubscribers,
+                       @Value("${shareit.booking.feed.queue-capacity:64}") int queueCapacity,
+                       @Value("${shareit.booking.feed.sender-threads:2}") int senderThreads) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.queueCapacity = queueCapacity;
+        this.sender = enabled ? Executors.newFixedThreadPool(senderThreads) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public SseEmitter subscribe(User user) {
+        Long userId = user.getId();
+        if (!enabled) {
+            throw new UnavailableException("Booking feed is disabled");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new UnavailableException("Too many booking feed subscribers");
+        }
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeoutMillis));
+        subscribers.compute(userId, (key, set) -> {
+            Set<Subscriber> userSubscribers = set == null ? ConcurrentHashMap.newKeySet() : set;
+            userSubscribers.add(subscriber);
+            return userSubscribers;
+        });
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+        return subscriber.emitter;
+    }
+
+    public void publish(Booking booking) {
+        if (!enabled) {
+            return;
+        }
+        BookingDto bookingDto = BookingMapper.toBookingDto(booking);
+        Long bookerId = booking.getBooker().getId();
+        Long ownerId = booking.getItem().getOwnerId();
+        AfterCommit.run(() -> {
+            deliver(bookerId, bookingDto);
+            if (!ownerId.equals(bookerId)) {
+                deliver(ownerId, bookingDto);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        sender.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void deliver(Long userId, BookingDto bookingDto) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            if (!subscriber.pending.offer(bookingDto)) {
+                log.warn("Booking feed subscriber of user {} is too slow, closing the stream", userId);
+                subscriber.emitter.complete();
+                continue;
+            }
+            if (subscriber.draining.compareAndSet(false, true)) {
+                sender.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            BookingDto bookingDto;
+            while ((bookingDto = subscriber.pending.poll()) != null) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .name(EVENT)
+                        .id(String.valueOf(bookingDto.getId()))
+                        .data(bookingDto, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (key, set) -> {
+            if (set.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private final class Subscriber {
+        final Long userId;
+        final SseEmitter emitter;
+        final Queue<BookingDto> pending = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+}
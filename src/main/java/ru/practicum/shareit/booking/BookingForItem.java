@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -13,4 +14,11 @@ import lombok.experimental.FieldDefaults;
 public class BookingForItem {
     Long id;
     Long bookerId;
+    @JsonIgnore
+    Long itemId;
+
+    public BookingForItem(Long id, Long bookerId) {
+        this.id = id;
+        this.bookerId = bookerId;
+    }
 }
@@ -1,15 +1,30 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    String EXPORT_FETCH_SIZE = "500";
+
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findById(Long id);
 
     @Query("select new ru.practicum.shareit.booking.BookingForItem(b.id, b.booker.id) " +
             "from Booking as b " +
@@ -17,7 +32,8 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "and b.start > ?2 " +
             "and b.status = ?3 " +
             "order by b.start asc")
-    List<BookingForItem> findNextBookingForItem(Long itemId, LocalDateTime currentTime, BookingStatus status);
+    List<BookingForItem> findNextBookingForItem(Long itemId, LocalDateTime currentTime, BookingStatus status,
+                                                PageRequest page);
 
     @Query("select new ru.practicum.shareit.booking.BookingForItem(b.id, b.booker.id) " +
             "from Booking as b " +
@@ -25,56 +41,284 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "and b.start < ?2 " +
             "and b.status = ?3 " +
             "order by b.start desc")
-    List<BookingForItem> findLastBookingForItem(Long itemId, LocalDateTime currentTime, BookingStatus status);
+    List<BookingForItem> findLastBookingForItem(Long itemId, LocalDateTime currentTime, BookingStatus status,
+                                                PageRequest page);
+
+    @Query("select new ru.practicum.shareit.booking.BookingSlot(b.id, b.booker.id, b.item.id, b.start, b.end) " +
+            "from Booking as b " +
+            "where b.status = ?1")
+    Slice<BookingSlot> findAllSlotsByStatus(BookingStatus status, PageRequest page);
+
+    @Query("select new ru.practicum.shareit.booking.BookingSlot(b.id, b.booker.id, b.item.id, b.start, b.end) " +
+            "from Booking as b " +
+            "where b.status in ?1")
+    Slice<BookingSlot> findAllSlotsByStatusIn(Collection<BookingStatus> statuses, PageRequest page);
+
+    @Query("select new ru.practicum.shareit.booking.BookingSlot(b.id, b.booker.id, b.item.id, b.start, b.end) " +
+            "from Booking as b " +
+            "where b.item.id in ?1 " +
+            "and b.status = ?4 " +
+            "and b.start < ?3 " +
+            "and b.end > ?2")
+    List<BookingSlot> findOverlappingSlots(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end,
+                                           BookingStatus status);
+
+    @Query("select new ru.practicum.shareit.booking.BookingForItem(b.id, b.booker.id, b.item.id) " +
+            "from Booking as b " +
+            "where b.item.id in ?1 " +
+            "and b.status = ?3 " +
+            "and b.start = (select max(l.start) from Booking as l " +
+            "where l.item.id = b.item.id and l.start < ?2 and l.status = ?3) " +
+            "order by b.id asc")
+    List<BookingForItem> findLastBookingsForItems(Collection<Long> itemIds, LocalDateTime currentTime,
+                                                  BookingStatus status);
+
+    @Query("select new ru.practicum.shareit.booking.BookingForItem(b.id, b.booker.id, b.item.id) " +
+            "from Booking as b " +
+            "where b.item.id in ?1 " +
+            "and b.status = ?3 " +
+            "and b.start = (select min(n.start) from Booking as n " +
+            "where n.item.id = b.item.id and n.start > ?2 and n.status = ?3) " +
+            "order by b.id asc")
+    List<BookingForItem> findNextBookingsForItems(Collection<Long> itemIds, LocalDateTime currentTime,
+                                                  BookingStatus status);
+
+    @Query("select case when count(b) > 0 then true else false end " +
+            "from Booking as b " +
+            "where b.item.id = ?1 " +
+            "and b.status = ?4 " +
+            "and b.start < ?3 " +
+            "and b.end > ?2")
+    boolean existsOverlapping(Long itemId, LocalDateTime start, LocalDateTime end, BookingStatus status);
+
+    @Query("select case when count(b) > 0 then true else false end " +
+            "from Booking as b " +
+            "where b.item.id = ?1 " +
+            "and b.status in ?4 " +
+            "and b.start < ?3 " +
+            "and b.end > ?2")
+    boolean existsOverlappingInStatuses(Long itemId, LocalDateTime start, LocalDateTime end,
+                                        Collection<BookingStatus> statuses);
+
+    @Query("select distinct b.item.id " +
+            "from Booking as b " +
+            "where b.item.id in ?1 " +
+            "and b.status in ?4 " +
+            "and b.start < ?3 " +
+            "and b.end > ?2")
+    List<Long> findOverlappingItemIds(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end,
+                                      Collection<BookingStatus> statuses);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
     @Query("select b " +
             "from Booking as b " +
             "where b.booker.id = ?1 " +
             "and (?2 between b.start and b.end) " +
-            "order by b.start desc")
+            "order by b.start desc, b.id desc")
     List<Booking> findAllByBookerIdCurrentBookings(Long userId, LocalDateTime now, PageRequest page);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.ownerId = ?1 " +
-            "order by b.start desc")
-    List<Booking> findAllByOwnerIdOrderByStartDesc(Long ownerId, PageRequest page);
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdOrderByStartDescIdDesc(Long ownerId, PageRequest page);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.ownerId = ?1 " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
             "and b.end < ?2 " +
-            "order by b.start desc")
-    List<Booking> findAllByOwnerIdAndEndIsBeforeOrderByStartDesc(Long ownerId, LocalDateTime now, PageRequest page);
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdAndEndIsBeforeOrderByStartDescIdDesc(Long ownerId, LocalDateTime now,
+                                                                       PageRequest page);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.ownerId = ?1 " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
             "and b.start > ?2 " +
-            "order by b.start desc")
-    List<Booking> findAllByOwnerIdAndStartAfterOrderByStartDesc(Long ownerId, LocalDateTime now, PageRequest page);
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdAndStartAfterOrderByStartDescIdDesc(Long ownerId, LocalDateTime now,
+                                                                      PageRequest page);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.ownerId = ?1 " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
             "and (?2 between b.start and b.end) " +
-            "order by b.start desc")
+            "order by b.start desc, b.id desc")
     List<Booking> findAllByOwnerIdCurrentBookings(Long ownerId, LocalDateTime now, PageRequest page);
 
     @Query("select b " +
             "from Booking as b " +
-            "where b.item.ownerId = ?1 " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
             "and b.status = ?2 " +
-            "order by b.start desc")
-    List<Booking> findAllByOwnerIdAndStatusOrderByStartDesc(Long ownerId, BookingStatus status, PageRequest page);
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdAndStatusOrderByStartDescIdDesc(Long ownerId, BookingStatus status, PageRequest page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdBeforeCursor(Long userId, LocalDateTime start, Long id, PageRequest page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and b.end < ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdPastBeforeCursor(Long userId, LocalDateTime now, LocalDateTime start,
+                                                    Long id, PageRequest page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and b.start > ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdFutureBeforeCursor(Long userId, LocalDateTime now, LocalDateTime start,
+                                                      Long id, PageRequest page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and (?2 between b.start and b.end) " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdCurrentBeforeCursor(Long userId, LocalDateTime now, LocalDateTime start,
+                                                       Long id, PageRequest page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and b.status = ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdAndStatusBeforeCursor(Long userId, BookingStatus status, LocalDateTime start,
+                                                         Long id, PageRequest page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdBeforeCursor(Long ownerId, LocalDateTime start, Long id, PageRequest page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
+            "and b.end < ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdPastBeforeCursor(Long ownerId, LocalDateTime now, LocalDateTime start,
+                                                   Long id, PageRequest page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
+            "and b.start > ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdFutureBeforeCursor(Long ownerId, LocalDateTime now, LocalDateTime start,
+                                                     Long id, PageRequest page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
+            "and (?2 between b.start and b.end) " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdCurrentBeforeCursor(Long ownerId, LocalDateTime now, LocalDateTime start,
+                                                      Long id, PageRequest page);
+
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
+            "and b.status = ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByOwnerIdAndStatusBeforeCursor(Long ownerId, BookingStatus status, LocalDateTime start,
+                                                        Long id, PageRequest page);
 
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long userId, PageRequest page);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdOrderByStartDescIdDesc(Long userId, PageRequest page);
 
-    List<Booking> findALLByBookerIdAndStatusOrderByStartDesc(Long userId, BookingStatus status, PageRequest page);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and b.status = ?2 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findALLByBookerIdAndStatusOrderByStartDescIdDesc(Long userId, BookingStatus status, PageRequest page);
 
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and b.item.id = ?2")
     List<Booking> findByBookerIdAndItemId(Long bookerId, Long itemId);
 
-    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByStartDesc(Long userId, LocalDateTime now, PageRequest page);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and b.end < ?2 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByStartDescIdDesc(Long userId, LocalDateTime now,
+                                                                        PageRequest page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "and b.start > ?2 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdAndStartIsAfterOrderByStartDescIdDesc(Long userId, LocalDateTime now,
+                                                                         PageRequest page);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b " +
+            "from Booking as b " +
+            "where b.booker.id = ?1 " +
+            "order by b.start desc, b.id desc")
+    Stream<Booking> streamAllByBookerId(Long userId);
 
-    List<Booking> findAllByBookerIdAndStartIsAfterOrderByStartDesc(Long userId, LocalDateTime now, PageRequest page);
-}
\ No newline at end of file
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.item as i " +
+            "join fetch b.booker " +
+            "where i.ownerId = ?1 " +
+            "order by b.start desc, b.id desc")
+    Stream<Booking> streamAllByOwnerId(Long ownerId);
+}
@@ -1,15 +1,29 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.paging.KeysetCursor;
+import ru.practicum.shareit.user.User;
+
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
-    BookingDto addBooking(Long userId, BookingRequest bookingRequest);
+    BookingDto addBooking(User booker, BookingRequest bookingRequest);
+
+    List<BookingBatchResult> addBookings(User booker, List<BookingRequest> bookingRequests);
+
+    BookingDto updateBookingStatus(User owner, Long bookingId, Boolean approved);
+
+    BookingDto getBookingById(User user, Long bookingId);
+
+    List<BookingDto> getAllBookerBookings(User user, String state, int from, int size);
+
+    List<BookingDto> getAllBookerBookings(User user, String state, KeysetCursor after, int size);
 
-    BookingDto updateBookingStatus(Long userId, Long bookingId, Boolean approved);
+    List<BookingDto> getAllBookerItemsBooking(User owner, String state, int from, int size);
 
-    BookingDto getBookingById(Long userId, Long bookingId);
+    List<BookingDto> getAllBookerItemsBooking(User owner, String state, KeysetCursor after, int size);
 
-    List<BookingDto> getAllBookerBookings(Long userId, String state, int from, int size);
+    void exportBookerBookings(User user, Consumer<BookingDto> consumer);
 
-    List<BookingDto> getAllBookerItemsBooking(Long ownerId, String state, int from, int size);
-}
\ No newline at end of file
+    void exportBookerItemsBookings(User owner, Consumer<BookingDto> consumer);
+}
@@ -1,59 +1,123 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UnavailableException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemAvailabilityIndex;
 import ru.practicum.shareit.item.ItemRepository;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.paging.KeysetCursor;
+import ru.practicum.shareit.user.User;
 
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    static final int MAX_BATCH = 1000;
+    static final int EXPORT_BATCH = 500;
+    // Postgres exclusion_violation, raised by ex_bookings_approved_overlap.
+    static final String EXCLUSION_VIOLATION = "23P01";
+
     private final BookingRepository bookingRepository;
-    private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingTimeline bookingTimeline;
+    private final ItemAvailabilityIndex itemAvailabilityIndex;
+    private final BookingFeed bookingFeed;
+    private final EntityManager entityManager;
 
     @Transactional
     @Override
-    public BookingDto addBooking(Long userId, BookingRequest bookingRequest) {
+    public BookingDto addBooking(User booker, BookingRequest bookingRequest) {
         Long id = bookingRequest.getItemId();
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime start = bookingRequest.getStart();
         LocalDateTime end = bookingRequest.getEnd();
-        checkUser(userId);
-        if (!itemRepository.findById(id).orElseThrow(() -> new NotFoundException("Can't find item id:" + id))
-                .getAvailable()) {
+        Item item = itemRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Can't find item id:" + id));
+        if (!item.getAvailable()) {
             throw new UnavailableException("Booking is unavailable");
         }
         if (start.isBefore(now) || end.isBefore(now) || start.equals(end) || start.isAfter(end)) {
             throw new UnavailableException("Booking is unavailable");
         }
-        if (userId.equals(itemRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Can't find item id:" + id))
-                .getOwnerId())) {
+        if (booker.getId().equals(item.getOwnerId())) {
             throw new NotFoundException("Wrong owner");
         }
+        if (bookingRepository.existsOverlapping(id, start, end, BookingStatus.APPROVED)) {
+            throw new UnavailableException("Booking overlaps with an approved booking");
+        }
         Booking booking = BookingMapper.toBooking(bookingRequest);
-        booking.setItem(itemRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Can't find item id:" + id)));
-        booking.setBooker(userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Can't find user id:" + userId)));
+        booking.setItem(item);
+        booking.setBooker(booker);
         booking.setStatus(BookingStatus.WAITING);
         bookingRepository.save(booking);
+        itemAvailabilityIndex.put(booking);
+        bookingFeed.publish(booking);
         return BookingMapper.toBookingDto(booking);
     }
 
+    @Transactional
+    @Override
+    public List<BookingBatchResult> addBookings(User booker, List<BookingRequest> bookingRequests) {
+        if (bookingRequests.size() > MAX_BATCH) {
+            throw new ValidationException("Batch can't contain more than " + MAX_BATCH + " bookings");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingRequest> present = bookingRequests.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Map<Long, Item> items = itemRepository.findAllById(present.stream()
+                        .map(BookingRequest::getItemId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Long, List<BookingSlot>> approved = findApprovedSlots(items.keySet(), present);
+        Map<Long, List<Integer>> accepted = new HashMap<>();
+        BookingBatchResult[] results = new BookingBatchResult[bookingRequests.size()];
+        List<Booking> bookings = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < bookingRequests.size(); i++) {
+            BookingRequest bookingRequest = bookingRequests.get(i);
+            Item item = bookingRequest == null ? null : items.get(bookingRequest.getItemId());
+            results[i] = validate(i, bookingRequests, booker.getId(), item, now, approved, accepted);
+            if (results[i] == null) {
+                accepted.computeIfAbsent(item.getId(), id -> new ArrayList<>()).add(i);
+                Booking booking = BookingMapper.toBooking(bookingRequest);
+                booking.setItem(item);
+                booking.setBooker(booker);
+                booking.setStatus(BookingStatus.WAITING);
+                bookings.add(booking);
+                positions.add(i);
+            }
+        }
+        bookingRepository.saveAll(bookings);
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            itemAvailabilityIndex.put(booking);
+            bookingFeed.publish(booking);
+            results[positions.get(i)] = BookingBatchResult.created(positions.get(i),
+                    BookingMapper.toBookingDto(booking));
+        }
+        return Arrays.asList(results);
+    }
+
     @Override
-    public BookingDto getBookingById(Long userId, Long bookingId) {
-        checkUser(userId);
+    public BookingDto getBookingById(User user, Long bookingId) {
+        Long userId = user.getId();
         Booking booking = getBookingOptional(bookingId);
         if (booking.getItem().getOwnerId().equals(userId) || booking.getBooker().getId().equals(userId)) {
             return BookingMapper.toBookingDto(booking);
@@ -64,97 +128,225 @@ public class BookingServiceImpl implements BookingService {
 
     @Transactional
     @Override
-    public BookingDto updateBookingStatus(Long userId, Long bookingId, Boolean approved) {
+    public BookingDto updateBookingStatus(User owner, Long bookingId, Boolean approved) {
         Booking booking = getBookingOptional(bookingId);
-        if (!booking.getItem().getOwnerId().equals(userId)) {
+        if (!booking.getItem().getOwnerId().equals(owner.getId())) {
             throw new NotFoundException("Wrong owner");
         }
         if (BookingStatus.APPROVED == booking.getStatus()) {
             throw new UnavailableException("Booking is already confirmed");
         }
         if (approved) {
+            Long itemId = booking.getItem().getId();
+            itemRepository.findByIdForUpdate(itemId)
+                    .orElseThrow(() -> new NotFoundException("Can't find item id:" + itemId));
+            if (bookingRepository.existsOverlapping(itemId, booking.getStart(), booking.getEnd(),
+                    BookingStatus.APPROVED)) {
+                throw new UnavailableException("Booking overlaps with an approved booking");
+            }
             booking.setStatus(BookingStatus.APPROVED);
+            bookingTimeline.approved(booking);
+            itemAvailabilityIndex.put(booking);
         } else {
             booking.setStatus(BookingStatus.REJECTED);
+            itemAvailabilityIndex.remove(booking);
         }
-        bookingRepository.save(booking);
+        try {
+            bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (isExclusionViolation(e)) {
+                throw new UnavailableException("Booking overlaps with an approved booking");
+            }
+            throw e;
+        }
+        bookingFeed.publish(booking);
         return BookingMapper.toBookingDto(booking);
     }
 
     @Override
-    public List<BookingDto> getAllBookerBookings(Long userId, String state, int from, int size) {
+    public List<BookingDto> getAllBookerBookings(User user, String state, int from, int size) {
+        if (from < 0 || size < 1) throw new ValidationException("Incorrect parameters");
+        return toBookingDtos(findBookerBookings(user.getId(), state, null, PageRequest.of(from / size, size)));
+    }
+
+    @Override
+    public List<BookingDto> getAllBookerBookings(User user, String state, KeysetCursor after, int size) {
+        if (size < 1) throw new ValidationException("Incorrect parameters");
+        return toBookingDtos(findBookerBookings(user.getId(), state, after, PageRequest.of(0, size)));
+    }
+
+    @Override
+    public List<BookingDto> getAllBookerItemsBooking(User owner, String state, int from, int size) {
         if (from < 0 || size < 1) throw new ValidationException("Incorrect parameters");
-        checkUser(userId);
-        BookingState newState = BookingState.parseState(state);
-        PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
-        switch (newState) {
+        return toBookingDtos(findOwnerBookings(owner.getId(), state, null, PageRequest.of(from / size, size)));
+    }
+
+    @Override
+    public List<BookingDto> getAllBookerItemsBooking(User owner, String state, KeysetCursor after, int size) {
+        if (size < 1) throw new ValidationException("Incorrect parameters");
+        return toBookingDtos(findOwnerBookings(owner.getId(), state, after, PageRequest.of(0, size)));
+    }
+
+    // Offset pages and cursor pages share the (start desc, id desc) order, so a cursor taken from either continues it.
+    private List<Booking> findBookerBookings(Long userId, String state, KeysetCursor after, PageRequest page) {
+        LocalDateTime now = LocalDateTime.now();
+        switch (BookingState.parseState(state)) {
             case ALL:
-                return bookingRepository.findAllByBookerIdOrderByStartDesc(userId, page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByBookerIdOrderByStartDescIdDesc(userId, page)
+                        : bookingRepository.findAllByBookerIdBeforeCursor(userId, after.getPosition(), after.getId(),
+                        page);
             case PAST:
-                return bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDesc(userId, LocalDateTime.now(), page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDescIdDesc(userId, now, page)
+                        : bookingRepository.findAllByBookerIdPastBeforeCursor(userId, now, after.getPosition(),
+                        after.getId(), page);
             case FUTURE:
-                return bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDesc(userId, LocalDateTime.now(), page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDescIdDesc(userId, now, page)
+                        : bookingRepository.findAllByBookerIdFutureBeforeCursor(userId, now, after.getPosition(),
+                        after.getId(), page);
             case CURRENT:
-                return bookingRepository.findAllByBookerIdCurrentBookings(userId, LocalDateTime.now(), page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByBookerIdCurrentBookings(userId, now, page)
+                        : bookingRepository.findAllByBookerIdCurrentBeforeCursor(userId, now, after.getPosition(),
+                        after.getId(), page);
             default:
                 BookingStatus status = BookingStatus.valueOf(String.valueOf(state));
-                return bookingRepository.findALLByBookerIdAndStatusOrderByStartDesc(userId, status, page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findALLByBookerIdAndStatusOrderByStartDescIdDesc(userId, status, page)
+                        : bookingRepository.findAllByBookerIdAndStatusBeforeCursor(userId, status, after.getPosition(),
+                        after.getId(), page);
         }
     }
 
-    @Override
-    public List<BookingDto> getAllBookerItemsBooking(Long ownerId, String state, int from, int size) {
-        if (from < 0 || size < 1) throw new ValidationException("Incorrect parameters");
-        checkUser(ownerId);
-        BookingState newState = BookingState.parseState(state);
-        PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
-        switch (newState) {
+    private List<Booking> findOwnerBookings(Long ownerId, String state, KeysetCursor after, PageRequest page) {
+        LocalDateTime now = LocalDateTime.now();
+        switch (BookingState.parseState(state)) {
             case ALL:
-                return bookingRepository.findAllByOwnerIdOrderByStartDesc(ownerId, page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByOwnerIdOrderByStartDescIdDesc(ownerId, page)
+                        : bookingRepository.findAllByOwnerIdBeforeCursor(ownerId, after.getPosition(), after.getId(),
+                        page);
             case PAST:
-                return bookingRepository.findAllByOwnerIdAndEndIsBeforeOrderByStartDesc(ownerId, LocalDateTime.now(), page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByOwnerIdAndEndIsBeforeOrderByStartDescIdDesc(ownerId, now, page)
+                        : bookingRepository.findAllByOwnerIdPastBeforeCursor(ownerId, now, after.getPosition(),
+                        after.getId(), page);
             case FUTURE:
-                return bookingRepository.findAllByOwnerIdAndStartAfterOrderByStartDesc(ownerId, LocalDateTime.now(), page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByOwnerIdAndStartAfterOrderByStartDescIdDesc(ownerId, now, page)
+                        : bookingRepository.findAllByOwnerIdFutureBeforeCursor(ownerId, now, after.getPosition(),
+                        after.getId(), page);
             case CURRENT:
-                return bookingRepository.findAllByOwnerIdCurrentBookings(ownerId, LocalDateTime.now(), page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByOwnerIdCurrentBookings(ownerId, now, page)
+                        : bookingRepository.findAllByOwnerIdCurrentBeforeCursor(ownerId, now, after.getPosition(),
+                        after.getId(), page);
             default:
                 BookingStatus status = BookingStatus.valueOf(String.valueOf(state));
-                return bookingRepository.findAllByOwnerIdAndStatusOrderByStartDesc(ownerId, status, page)
-                        .stream()
-                        .map(BookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+                return after == null
+                        ? bookingRepository.findAllByOwnerIdAndStatusOrderByStartDescIdDesc(ownerId, status, page)
+                        : bookingRepository.findAllByOwnerIdAndStatusBeforeCursor(ownerId, status, after.getPosition(),
+                        after.getId(), page);
+        }
+    }
+
+    private static List<BookingDto> toBookingDtos(List<Booking> bookings) {
+        return bookings.stream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportBookerBookings(User user, Consumer<BookingDto> consumer) {
+        try (Stream<Booking> bookings = bookingRepository.streamAllByBookerId(user.getId())) {
+            export(bookings, consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportBookerItemsBookings(User owner, Consumer<BookingDto> consumer) {
+        try (Stream<Booking> bookings = bookingRepository.streamAllByOwnerId(owner.getId())) {
+            export(bookings, consumer);
+        }
+    }
+
+    private void export(Stream<Booking> bookings, Consumer<BookingDto> consumer) {
+        int exported = 0;
+        for (Booking booking : (Iterable<Booking>) bookings::iterator) {
+            consumer.accept(BookingMapper.toBookingDto(booking));
+            if (++exported % EXPORT_BATCH == 0) {
+                entityManager.clear();
+            }
+        }
+    }
+
+    private Map<Long, List<BookingSlot>> findApprovedSlots(Collection<Long> itemIds,
+                                                           List<BookingRequest> bookingRequests) {
+        LocalDateTime start = bookingRequests.stream()
+                .map(BookingRequest::getStart)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        LocalDateTime end = bookingRequests.stream()
+                .map(BookingRequest::getEnd)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        if (itemIds.isEmpty() || start == null || end == null) {
+            return Map.of();
+        }
+        return bookingRepository.findOverlappingSlots(itemIds, start, end, BookingStatus.APPROVED)
+                .stream()
+                .collect(Collectors.groupingBy(BookingSlot::getItemId));
+    }
+
+    private BookingBatchResult validate(int index, List<BookingRequest> bookingRequests, Long userId, Item item,
+                                        LocalDateTime now, Map<Long, List<BookingSlot>> approved,
+                                        Map<Long, List<Integer>> accepted) {
+        BookingRequest bookingRequest = bookingRequests.get(index);
+        if (bookingRequest == null) {
+            return BookingBatchResult.rejected(index, BookingBatchStatus.INVALID, "Booking is required");
+        }
+        LocalDateTime start = bookingRequest.getStart();
+        LocalDateTime end = bookingRequest.getEnd();
+        if (bookingRequest.getItemId() == null || start == null || end == null) {
+            return BookingBatchResult.rejected(index, BookingBatchStatus.INVALID,
+                    "Item id, start and end are required");
+        }
+        if (item == null) {
+            return BookingBatchResult.rejected(index, BookingBatchStatus.NOT_FOUND,
+                    "Can't find item id:" + bookingRequest.getItemId());
+        }
+        if (!item.getAvailable() || start.isBefore(now) || end.isBefore(now) || !start.isBefore(end)) {
+            return BookingBatchResult.rejected(index, BookingBatchStatus.UNAVAILABLE, "Booking is unavailable");
+        }
+        if (userId.equals(item.getOwnerId())) {
+            return BookingBatchResult.rejected(index, BookingBatchStatus.NOT_FOUND, "Wrong owner");
+        }
+        for (BookingSlot slot : approved.getOrDefault(item.getId(), List.of())) {
+            if (slot.getStart().isBefore(end) && slot.getEnd().isAfter(start)) {
+                return BookingBatchResult.rejected(index, BookingBatchStatus.OVERLAPPING,
+                        "Booking overlaps with an approved booking");
+            }
+        }
+        for (int other : accepted.getOrDefault(item.getId(), List.of())) {
+            BookingRequest otherRequest = bookingRequests.get(other);
+            if (otherRequest.getStart().isBefore(end) && otherRequest.getEnd().isAfter(start)) {
+                return BookingBatchResult.rejected(index, BookingBatchStatus.OVERLAPPING,
+                        "Booking overlaps with booking " + other + " of the batch");
+            }
         }
+        return null;
     }
 
-    private void checkUser(Long userId) {
-        if (userRepository.findById(userId).isEmpty()) throw new NotFoundException("Can't find user id:" + userId);
+    // The item lock serializes approvals on one database, the exclusion constraint catches whatever slips past it.
+    private static boolean isExclusionViolation(DataIntegrityViolationException e) {
+        Throwable cause = e.getMostSpecificCause();
+        return cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState());
     }
 
     private Booking getBookingOptional(Long bookingId) {
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingSlot {
+    Long id;
+    Long bookerId;
+    Long itemId;
+    LocalDateTime start;
+    LocalDateTime end;
+
+    public static BookingSlot of(Booking booking) {
+        return new BookingSlot(booking.getId(), booking.getBooker().getId(), booking.getItem().getId(),
+                booking.getStart(), booking.getEnd());
+    }
+
+    public BookingForItem toBookingForItem() {
+        return new BookingForItem(id, bookerId, itemId);
+    }
+}
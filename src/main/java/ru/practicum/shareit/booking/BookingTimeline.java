@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.index.InMemoryIndex;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+@Slf4j
+@Component
+public class BookingTimeline
+        extends InMemoryIndex<Map<Long, NavigableMap<LocalDateTime, NavigableMap<Long, BookingSlot>>>> {
+    private final BookingRepository bookingRepository;
+
+    public BookingTimeline(BookingRepository bookingRepository,
+                           @Value("${shareit.booking.timeline.enabled:false}") boolean enabled) {
+        super(enabled, new HashMap<>());
+        this.bookingRepository = bookingRepository;
+    }
+
+    @Override
+    protected Map<Long, NavigableMap<LocalDateTime, NavigableMap<Long, BookingSlot>>> load() {
+        Map<Long, NavigableMap<LocalDateTime, NavigableMap<Long, BookingSlot>>> timelines = new HashMap<>();
+        long bookings = forEachSlice(page -> bookingRepository.findAllSlotsByStatus(BookingStatus.APPROVED, page),
+                slot -> add(timelines, slot));
+        log.info("Booking timeline loaded: {} approved bookings of {} items", bookings, timelines.size());
+        return timelines;
+    }
+
+    public void approved(Booking booking) {
+        BookingSlot slot = BookingSlot.of(booking);
+        update(timelines -> add(timelines, slot));
+    }
+
+    public BookingForItem getLastBooking(Long itemId, LocalDateTime currentTime) {
+        return read(timelines -> {
+            NavigableMap<LocalDateTime, NavigableMap<Long, BookingSlot>> timeline = timelines.get(itemId);
+            return toBookingForItem(timeline == null ? null : timeline.lowerEntry(currentTime));
+        });
+    }
+
+    public BookingForItem getNextBooking(Long itemId, LocalDateTime currentTime) {
+        return read(timelines -> {
+            NavigableMap<LocalDateTime, NavigableMap<Long, BookingSlot>> timeline = timelines.get(itemId);
+            return toBookingForItem(timeline == null ? null : timeline.higherEntry(currentTime));
+        });
+    }
+
+    // Bookings sharing a start are kept side by side; the lowest id wins, as in the batch queries of the repository.
+    private static BookingForItem toBookingForItem(Map.Entry<LocalDateTime, NavigableMap<Long, BookingSlot>> entry) {
+        return entry == null ? null : entry.getValue().firstEntry().getValue().toBookingForItem();
+    }
+
+    private static void add(Map<Long, NavigableMap<LocalDateTime, NavigableMap<Long, BookingSlot>>> timelines,
+                            BookingSlot slot) {
+        timelines.computeIfAbsent(slot.getItemId(), key -> new TreeMap<>())
+                .computeIfAbsent(slot.getStart(), key -> new TreeMap<>())
+                .put(slot.getId(), slot);
+    }
+}
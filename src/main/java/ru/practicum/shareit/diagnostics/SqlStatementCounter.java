@@ -0,0 +1,61 @@
+package ru.practicum.shareit.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SqlStatementCounter implements StatementInspector {
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Counts current = COUNTS.get();
+        if (current != null) {
+            current.add(sql);
+        }
+        return sql;
+    }
+
+    public static void start() {
+        COUNTS.set(new Counts());
+    }
+
+    public static Counts current() {
+        return COUNTS.get();
+    }
+
+    public static Counts stop() {
+        Counts current = COUNTS.get();
+        COUNTS.remove();
+        return current;
+    }
+
+    public static final class Counts {
+        private final Map<String, Integer> shapes = new HashMap<>();
+        private int total;
+
+        void add(String sql) {
+            total++;
+            shapes.merge(shape(sql), 1, Integer::sum);
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public Map.Entry<String, Integer> getMostRepeated() {
+            return shapes.entrySet()
+                    .stream()
+                    .max(Map.Entry.comparingByValue())
+                    .orElse(null);
+        }
+
+        private static String shape(String sql) {
+            return sql.replaceAll("'[^']*'", "?")
+                    .replaceAll("\\b\\d+\\b", "?")
+                    .replaceAll("\\s+", " ")
+                    .trim();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.diagnostics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.sql.diagnostics.enabled", havingValue = "true")
+public class SqlStatementFilter extends OncePerRequestFilter {
+    private final int maxStatements;
+    private final int maxRepeats;
+
+    public SqlStatementFilter(@Value("${shareit.sql.diagnostics.max-statements:20}") int maxStatements,
+                              @Value("${shareit.sql.diagnostics.max-repeats:5}") int maxRepeats) {
+        this.maxStatements = maxStatements;
+        this.maxRepeats = maxRepeats;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatementCounter.Counts counts = SqlStatementCounter.stop();
+            Map.Entry<String, Integer> repeated = counts.getMostRepeated();
+            if (counts.getTotal() > maxStatements) {
+                log.warn("{} {} executed {} SQL statements (budget {})", request.getMethod(),
+                        request.getRequestURI(), counts.getTotal(), maxStatements);
+            }
+            if (repeated != null && repeated.getValue() > maxRepeats) {
+                log.warn("{} {} repeated the same SQL statement {} times, possible N+1: {}", request.getMethod(),
+                        request.getRequestURI(), repeated.getValue(), repeated.getKey());
+            }
+        }
+    }
+}
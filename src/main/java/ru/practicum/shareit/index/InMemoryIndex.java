@@ -0,0 +1,115 @@
+package ru.practicum.shareit.index;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public abstract class InMemoryIndex<S> {
+    public static final int REBUILD_BATCH = 1000;
+
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private S state;
+    private List<Consumer<S>> pending;
+    private volatile boolean ready;
+
+    protected InMemoryIndex(boolean enabled, S empty) {
+        this.enabled = enabled;
+        this.state = empty;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Until the first rebuild completes the index is empty, so callers must keep using the database.
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Updates committed while the new state is loaded are applied to the live state and replayed on the new one.
+    public synchronized void rebuild() {
+        write(() -> pending = new ArrayList<>());
+        S newState;
+        try {
+            newState = load();
+        } catch (RuntimeException e) {
+            write(() -> pending = null);
+            throw e;
+        }
+        write(() -> {
+            pending.forEach(mutation -> mutation.accept(newState));
+            state = newState;
+            pending = null;
+        });
+        ready = true;
+    }
+
+    protected abstract S load();
+
+    protected void update(Consumer<S> mutation) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> apply(mutation));
+    }
+
+    // Applies the mutation immediately; callers must already be past the commit of the data it reflects.
+    protected void apply(Consumer<S> mutation) {
+        write(() -> {
+            mutation.accept(state);
+            if (pending != null) {
+                pending.add(mutation);
+            }
+        });
+    }
+
+    protected <R> R read(Function<S, R> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected static <T> long forEachSlice(Function<PageRequest, Slice<T>> query, Consumer<T> consumer) {
+        PageRequest page = PageRequest.of(0, REBUILD_BATCH, Sort.by("id"));
+        Slice<T> slice;
+        long count = 0;
+        do {
+            slice = query.apply(page);
+            for (T element : slice) {
+                consumer.accept(element);
+                count++;
+            }
+            page = page.next();
+        } while (slice.hasNext());
+        return count;
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
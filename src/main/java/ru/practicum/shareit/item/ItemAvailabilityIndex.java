@@ -0,0 +1,109 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingSlot;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.index.InMemoryIndex;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Slf4j
+@Component
+public class ItemAvailabilityIndex extends InMemoryIndex<Map<Long, ItemAvailabilityIndex.Intervals>> {
+    static final List<BookingStatus> BLOCKING_STATUSES = List.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+
+    private final BookingRepository bookingRepository;
+
+    public ItemAvailabilityIndex(BookingRepository bookingRepository,
+                                 @Value("${shareit.availability.index.enabled:false}") boolean enabled) {
+        super(enabled, new HashMap<>());
+        this.bookingRepository = bookingRepository;
+    }
+
+    @Override
+    protected Map<Long, Intervals> load() {
+        Map<Long, List<BookingSlot>> slots = new HashMap<>();
+        forEachSlice(page -> bookingRepository.findAllSlotsByStatusIn(BLOCKING_STATUSES, page),
+                slot -> slots.computeIfAbsent(slot.getItemId(), key -> new ArrayList<>()).add(slot));
+        Map<Long, Intervals> intervals = new HashMap<>();
+        slots.forEach((itemId, itemSlots) -> intervals.put(itemId, new Intervals(itemSlots)));
+        log.info("Item availability index loaded: {} items", intervals.size());
+        return intervals;
+    }
+
+    public void put(Booking booking) {
+        BookingSlot slot = BookingSlot.of(booking);
+        update(intervals -> intervals.compute(slot.getItemId(),
+                (itemId, current) -> (current == null ? Intervals.EMPTY : current).with(slot)));
+    }
+
+    public void remove(Booking booking) {
+        Long bookingId = booking.getId();
+        Long itemId = booking.getItem().getId();
+        update(intervals -> intervals.computeIfPresent(itemId, (key, current) -> current.without(bookingId)));
+    }
+
+    public boolean isAvailable(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return read(intervals -> {
+            Intervals itemIntervals = intervals.get(itemId);
+            return itemIntervals == null || !itemIntervals.overlaps(from, to);
+        });
+    }
+
+    static final class Intervals {
+        static final Intervals EMPTY = new Intervals(Collections.emptyList());
+
+        final BookingSlot[] slots;
+        final LocalDateTime[] maxEnds;
+
+        Intervals(Collection<BookingSlot> source) {
+            slots = source.toArray(new BookingSlot[0]);
+            Arrays.sort(slots, Comparator.comparing(BookingSlot::getStart).thenComparing(BookingSlot::getId));
+            maxEnds = new LocalDateTime[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                LocalDateTime end = slots[i].getEnd();
+                maxEnds[i] = i > 0 && maxEnds[i - 1].isAfter(end) ? maxEnds[i - 1] : end;
+            }
+        }
+
+        boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            int low = 0;
+            int high = slots.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (slots[middle].getStart().isBefore(to)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low > 0 && maxEnds[low - 1].isAfter(from);
+        }
+
+        Intervals with(BookingSlot slot) {
+            List<BookingSlot> result = new ArrayList<>(slots.length + 1);
+            for (BookingSlot current : slots) {
+                if (!current.getId().equals(slot.getId())) {
+                    result.add(current);
+                }
+            }
+            result.add(slot);
+            return new Intervals(result);
+        }
+
+        Intervals without(Long bookingId) {
+            List<BookingSlot> result = new ArrayList<>(slots.length);
+            for (BookingSlot current : slots) {
+                if (!current.getId().equals(bookingId)) {
+                    result.add(current);
+                }
+            }
+            return result.isEmpty() ? null : new Intervals(result);
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.comment.CommentDto;
 import ru.practicum.shareit.item.comment.CommentRequest;
+import ru.practicum.shareit.user.SharerUser;
+import ru.practicum.shareit.user.User;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,19 +27,40 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class ItemController {
     final ItemServiceImpl itemService;
+    final ObjectMapper objectMapper;
 
     @GetMapping
     public List<ItemBookingModel> findAllItemsByOwner(
             @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero int from,
             @RequestParam(value = "size", defaultValue = "20") @Positive int size,
-            @RequestHeader("X-Sharer-User-Id") long userId) {
-        return itemService.findAllItemsByOwner(userId, from, size);
+            @SharerUser User owner) {
+        return itemService.findAllItemsByOwner(owner, from, size);
     }
 
     @GetMapping("/{itemId}")
-    public ItemBookingModel findItemById(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public ItemBookingModel findItemById(@SharerUser User user,
                                          @PathVariable("itemId") Long itemId) {
-        return itemService.findItemById(userId, itemId);
+        return itemService.findItemById(user, itemId);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailability getAvailability(
+            @SharerUser User user,
+            @PathVariable("itemId") Long itemId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
+    }
+
+    @GetMapping("/available")
+    public List<ItemDto> findAvailableItems(
+            @SharerUser User owner,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime start = from == null ? LocalDateTime.now() : from;
+        return itemService.findAvailableItems(owner, start, to == null ? start.plusSeconds(1) : to);
     }
 
     @GetMapping("/search")
@@ -42,20 +72,36 @@ public class ItemController {
     }
 
     @PostMapping
-    public ItemDto createItem(@RequestHeader("X-Sharer-User-Id") Long ownerId, @Valid @RequestBody ItemDto itemDto) {
-        return itemService.create(ownerId, itemDto);
+    public ItemDto createItem(@SharerUser User owner, @Valid @RequestBody ItemDto itemDto) {
+        return itemService.create(owner, itemDto);
+    }
+
+    @PostMapping("/batch")
+    public List<ItemDto> createItems(@SharerUser User owner, @RequestBody List<ItemDto> itemDtos) {
+        return itemService.createAll(owner, itemDtos);
+    }
+
+    @PostMapping(path = "/import", consumes = {ItemImportReader.CSV, ItemImportReader.NDJSON})
+    public ItemImportResult importItems(@SharerUser User owner, HttpServletRequest request) throws IOException {
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        try (BufferedReader reader = request.getReader()) {
+            return new ItemImportResult(itemService.importItems(owner,
+                    new ItemImportReader(reader, MediaType.parseMediaType(request.getContentType()), objectMapper)));
+        }
     }
 
     @PatchMapping("/{itemId}")
-    public ItemDto updateItem(@RequestHeader("X-Sharer-User-Id") Long ownerId, @PathVariable("itemId") Long itemId,
+    public ItemDto updateItem(@SharerUser User owner, @PathVariable("itemId") Long itemId,
                               @RequestBody ItemDto itemDto) {
-        return itemService.update(itemDto, itemId, ownerId);
+        return itemService.update(itemDto, itemId, owner);
     }
 
     @PostMapping("/{itemId}/comment")
-    public CommentDto addComment(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public CommentDto addComment(@SharerUser User author,
                                  @PathVariable("itemId") Long itemId,
                                  @Valid @RequestBody CommentRequest commentRequest) {
-        return itemService.createComment(userId, itemId, commentRequest);
+        return itemService.createComment(author, itemId, commentRequest);
     }
 }
@@ -0,0 +1,155 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+public class ItemImportReader implements Iterator<ItemDto> {
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+    static final List<String> CSV_COLUMNS = List.of("name", "description", "available", "requestId");
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> columns;
+    private int lineNumber;
+    private int nextLineNumber;
+    private int currentLineNumber;
+    private ItemDto next;
+
+    public ItemImportReader(BufferedReader reader, MediaType contentType, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.csv = MediaType.parseMediaType(CSV).isCompatibleWith(contentType);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                if (csv && columns == null) {
+                    columns = readHeader(line);
+                    continue;
+                }
+                next = csv ? fromCsv(line) : objectMapper.readValue(line, ItemDto.class);
+                nextLineNumber = lineNumber;
+                return true;
+            } catch (IOException | RuntimeException e) {
+                throw new ValidationException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public ItemDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ItemDto itemDto = next;
+        next = null;
+        currentLineNumber = nextLineNumber;
+        return itemDto;
+    }
+
+    // Line of the element last returned by next(), for error messages that point into the file.
+    public int getLineNumber() {
+        return currentLineNumber;
+    }
+
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Integer> readHeader(String line) {
+        List<String> header = split(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim();
+            if (!CSV_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown column " + column + ", expected " + CSV_COLUMNS);
+            }
+            columns.put(column, i);
+        }
+        return columns;
+    }
+
+    private ItemDto fromCsv(String line) {
+        List<String> values = split(line);
+        String available = value(values, "available");
+        String requestId = value(values, "requestId");
+        return ItemDto.builder()
+                .name(value(values, "name"))
+                .description(value(values, "description"))
+                .available(available == null ? null : parseBoolean(available.trim()))
+                .requestId(requestId == null ? null : Long.valueOf(requestId.trim()))
+                .build();
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            throw new IllegalArgumentException("available must be true or false, got " + value);
+        }
+        return Boolean.valueOf(value);
+    }
+
+    private String value(List<String> values, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
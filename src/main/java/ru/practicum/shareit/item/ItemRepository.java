@@ -1,20 +1,71 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.CacheConfig;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ITEMS, key = "#p0", unless = "#result == null")
+    Optional<Item> findById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#p0.id", condition = "#p0.id != null")
+    <S extends Item> S save(S item);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#p0.id", condition = "#p0.id != null")
+    <S extends Item> S saveAndFlush(S item);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true, condition = "#p0.?[id != null].size() > 0")
+    <S extends Item> List<S> saveAll(Iterable<S> items);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#p0")
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#p0.id", condition = "#p0.id != null")
+    void delete(Item item);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item as i where i.id = ?1")
+    Optional<Item> findByIdForUpdate(Long itemId);
+
     List<Item> findAllByOwnerId(Long ownerId, Pageable page);
 
-    @Query(value = "SELECT i " +
-            "FROM Item AS i " +
-            "WHERE (lower(i.name) LIKE %:text% OR lower(i.description) LIKE %:text%) AND i.available=TRUE")
+    List<Item> findAllByOwnerIdOrderById(Long ownerId);
+
+    @Query(value = "SELECT * " +
+            "FROM items AS i " +
+            "WHERE (lower(i.name) LIKE concat('%', :text, '%') OR lower(i.description) LIKE concat('%', :text, '%')) " +
+            "AND i.available = TRUE " +
+            "ORDER BY CASE WHEN lower(i.name) LIKE concat(:text, '%') THEN 0 " +
+            "WHEN lower(i.name) LIKE concat('%', :text, '%') THEN 1 " +
+            "ELSE 2 END, i.id",
+            nativeQuery = true)
     List<Item> findItemsByTextIgnoreCase(String text, Pageable page);
 
     List<Item> findAllByRequestIdIn(List<Long> requestsId);
+
+    Slice<Item> findAllByAvailableTrue(Pageable page);
+
+    @Query("select new ru.practicum.shareit.item.Item(i.id, i.name, i.description, i.available, i.ownerId, " +
+            "i.requestId) " +
+            "from Item as i " +
+            "where i.id in ?1")
+    List<Item> findDetachedByIdIn(Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,229 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.index.AfterCommit;
+import ru.practicum.shareit.index.InMemoryIndex;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class ItemSearchIndex extends InMemoryIndex<ItemSearchIndex.Terms> {
+    static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.search.index.enabled:false}") boolean enabled) {
+        super(enabled, new Terms());
+        this.itemRepository = itemRepository;
+    }
+
+    @Override
+    protected Terms load() {
+        Terms terms = new Terms();
+        forEachSlice(itemRepository::findAllByAvailableTrue, item -> index(terms, item));
+        log.info("Item search index loaded: {} items, {} terms", terms.documents.size(), terms.postings.size());
+        return terms;
+    }
+
+    public void put(Item item) {
+        putAll(List.of(item));
+    }
+
+    public void putAll(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Item> batch = List.copyOf(items);
+        update(terms -> reindex(terms, batch));
+    }
+
+    // Re-reads the items after commit in pages, so large imports only have to hold on to their ids.
+    public void putAllById(List<Long> ids) {
+        if (!isEnabled() || ids.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            for (int from = 0; from < ids.size(); from += REBUILD_BATCH) {
+                List<Item> batch = itemRepository.findDetachedByIdIn(
+                        ids.subList(from, Math.min(from + REBUILD_BATCH, ids.size())));
+                apply(terms -> reindex(terms, batch));
+            }
+        });
+    }
+
+    public List<Long> search(String text, int offset, int limit) {
+        String query = text.toLowerCase();
+        return read(terms -> {
+            List<Long> matches = new ArrayList<>();
+            for (long id : terms.candidates(query)) {
+                if (terms.documents.get(id).contains(query)) {
+                    matches.add(id);
+                }
+            }
+            return matches.stream()
+                    .sorted(Comparator.comparingInt((Long id) -> terms.documents.get(id).rank(query))
+                            .thenComparing(Comparator.naturalOrder()))
+                    .skip(offset)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    public ItemSearchIndexStats getStats() {
+        return read(terms -> {
+            long entries = 0;
+            long bytes = 0;
+            for (Map.Entry<String, Postings> entry : terms.postings.entrySet()) {
+                entries += entry.getValue().size;
+                bytes += 2L * entry.getKey().length() + Long.BYTES * (long) entry.getValue().ids.length;
+            }
+            for (Document document : terms.documents.values()) {
+                bytes += 2L * (document.name.length() + document.description.length());
+            }
+            return new ItemSearchIndexStats(isEnabled(), isReady(), terms.documents.size(), terms.postings.size(), entries,
+                    bytes);
+        });
+    }
+
+    private static void reindex(Terms terms, List<Item> items) {
+        for (Item item : items) {
+            terms.unindex(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                index(terms, item);
+            }
+        }
+    }
+
+    private static void index(Terms terms, Item item) {
+        Document document = new Document(item);
+        terms.documents.put(item.getId(), document);
+        for (String gram : document.grams()) {
+            terms.postings.computeIfAbsent(gram, key -> new Postings()).add(item.getId());
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    static final class Terms {
+        final Map<String, Postings> postings = new HashMap<>();
+        final Map<Long, Document> documents = new HashMap<>();
+
+        long[] candidates(String query) {
+            if (query.length() < GRAM) {
+                return documents.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            }
+            List<Postings> lists = new ArrayList<>();
+            for (String gram : grams(query)) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = lists.get(i).intersect(result);
+            }
+            return result;
+        }
+
+        void unindex(Long id) {
+            Document document = documents.remove(id);
+            if (document == null) {
+                return;
+            }
+            for (String gram : document.grams()) {
+                Postings list = postings.get(gram);
+                if (list != null && list.remove(id) == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static final class Document {
+        final String name;
+        final String description;
+
+        Document(Item item) {
+            this.name = item.getName() == null ? "" : item.getName().toLowerCase();
+            this.description = item.getDescription() == null ? "" : item.getDescription().toLowerCase();
+        }
+
+        boolean contains(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+
+        int rank(String query) {
+            if (name.startsWith(query)) {
+                return 0;
+            }
+            return name.contains(query) ? 1 : 2;
+        }
+
+        Set<String> grams() {
+            Set<String> grams = ItemSearchIndex.grams(name);
+            grams.addAll(ItemSearchIndex.grams(description));
+            return grams;
+        }
+    }
+
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        int remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+            return size;
+        }
+
+        long[] intersect(long[] sorted) {
+            long[] result = new long[Math.min(size, sorted.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < sorted.length) {
+                if (ids[i] < sorted[j]) {
+                    i++;
+                } else if (ids[i] > sorted[j]) {
+                    j++;
+                } else {
+                    result[count++] = ids[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
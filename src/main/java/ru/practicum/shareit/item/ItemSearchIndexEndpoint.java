@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "searchindex")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemSearchIndexEndpoint {
+    final ItemSearchIndex itemSearchIndex;
+
+    @ReadOperation
+    public ItemSearchIndexStats stats() {
+        return itemSearchIndex.getStats();
+    }
+
+    @WriteOperation
+    public ItemSearchIndexStats rebuild() {
+        if (itemSearchIndex.isEnabled()) {
+            itemSearchIndex.rebuild();
+        }
+        return itemSearchIndex.getStats();
+    }
+}
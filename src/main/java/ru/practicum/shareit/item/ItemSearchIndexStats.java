@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemSearchIndexStats {
+    boolean enabled;
+    boolean ready;
+    int items;
+    int terms;
+    long postings;
+    long estimatedBytes;
+}
@@ -2,20 +2,30 @@ package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.comment.CommentDto;
 import ru.practicum.shareit.item.comment.CommentRequest;
+import ru.practicum.shareit.user.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
-    ItemDto create(Long ownerId, ItemDto itemDto);
+    ItemDto create(User owner, ItemDto itemDto);
 
-    ItemDto update(ItemDto itemDto, Long itemId, Long ownerId);
+    List<ItemDto> createAll(User owner, List<ItemDto> itemDtos);
 
-    ItemBookingModel findItemById(Long userId, Long itemId);
+    long importItems(User owner, ItemImportReader reader);
 
-    List<ItemBookingModel> findAllItemsByOwner(Long ownerId, Integer from, Integer size);
+    ItemDto update(ItemDto itemDto, Long itemId, User owner);
+
+    ItemBookingModel findItemById(User user, Long itemId);
+
+    List<ItemBookingModel> findAllItemsByOwner(User owner, Integer from, Integer size);
 
     List<ItemDto> search(String text, Integer from, Integer size);
 
-    CommentDto createComment(Long userId, Long itemId, CommentRequest commentRequest);
+    CommentDto createComment(User author, Long itemId, CommentRequest commentRequest);
+
+    ItemAvailability getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
+    List<ItemDto> findAvailableItems(User owner, LocalDateTime from, LocalDateTime to);
 
 }
@@ -10,47 +10,103 @@ import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingForItem;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.BookingTimeline;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.comment.*;
-import ru.practicum.shareit.user.UserDto;
-import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.User;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class ItemServiceImpl implements ItemService {
-    final UserService userService;
+    static final PageRequest FIRST = PageRequest.of(0, 1);
+    static final int MAX_BATCH = 1000;
+    static final int IMPORT_BATCH = 500;
+
     final ItemRepository itemRepository;
     final BookingRepository bookingRepository;
     final CommentRepository commentRepository;
+    final ItemSearchIndex itemSearchIndex;
+    final BookingTimeline bookingTimeline;
+    final ItemAvailabilityIndex itemAvailabilityIndex;
+    final EntityManager entityManager;
 
     @Transactional
     @Override
-    public ItemDto create(Long ownerId, ItemDto itemDto) {
-        UserDto owner = userService.findUserById(ownerId);
+    public ItemDto create(User owner, ItemDto itemDto) {
         Item item = ItemMapper.toItem(itemDto);
         item.setOwnerId(owner.getId());
         item.setRequestId(item.getRequestId());
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.put(savedItem);
+        return ItemMapper.toItemDto(savedItem);
+    }
+
+    @Transactional
+    @Override
+    public List<ItemDto> createAll(User owner, List<ItemDto> itemDtos) {
+        if (itemDtos.size() > MAX_BATCH) {
+            throw new ValidationException("Batch can't contain more than " + MAX_BATCH + " items");
+        }
+        List<Item> items = new ArrayList<>(itemDtos.size());
+        for (ItemDto itemDto : itemDtos) {
+            items.add(toNewItem("Item " + items.size(), itemDto, owner.getId()));
+        }
+        List<Item> savedItems = itemRepository.saveAll(items);
+        itemSearchIndex.putAll(savedItems);
+        return savedItems.stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
     }
 
+    @Transactional
     @Override
-    public ItemBookingModel findItemById(Long userId, Long itemId) {
-        Item item = getItemOptional(userId, itemId);
+    public long importItems(User owner, ItemImportReader reader) {
+        List<Item> chunk = new ArrayList<>(IMPORT_BATCH);
+        List<Long> importedIds = new ArrayList<>();
+        long imported = 0;
+        while (reader.hasNext()) {
+            ItemDto itemDto = reader.next();
+            chunk.add(toNewItem("Line " + reader.getLineNumber(), itemDto, owner.getId()));
+            imported++;
+            if (chunk.size() == IMPORT_BATCH) {
+                saveChunk(chunk, importedIds);
+            }
+        }
+        saveChunk(chunk, importedIds);
+        itemSearchIndex.putAllById(importedIds);
+        return imported;
+    }
+
+    @Override
+    public ItemBookingModel findItemById(User user, Long itemId) {
+        Long userId = user.getId();
+        Item item = getItemOptional(itemId);
         ItemBookingModel itemWithDates = ItemMapper.toItemWithDatesDto(item);
         LocalDateTime currentTime = LocalDateTime.now();
-        if (item.getOwnerId().equals(userId)) {
-            BookingForItem lastBooking = bookingRepository.findLastBookingForItem(itemId, currentTime, BookingStatus.APPROVED)
-                    .stream().findFirst().orElse(null);
-            BookingForItem nextBooking = bookingRepository.findNextBookingForItem(itemId, currentTime, BookingStatus.APPROVED)
-                    .stream().findFirst().orElse(null);
+        if (item.getOwnerId().equals(userId) && bookingTimeline.isReady()) {
+            itemWithDates.setLastBooking(bookingTimeline.getLastBooking(itemId, currentTime));
+            itemWithDates.setNextBooking(bookingTimeline.getNextBooking(itemId, currentTime));
+        } else if (item.getOwnerId().equals(userId)) {
+            BookingForItem lastBooking = bookingRepository.findLastBookingForItem(itemId, currentTime,
+                    BookingStatus.APPROVED, FIRST).stream().findFirst().orElse(null);
+            BookingForItem nextBooking = bookingRepository.findNextBookingForItem(itemId, currentTime,
+                    BookingStatus.APPROVED, FIRST).stream().findFirst().orElse(null);
             itemWithDates.setLastBooking(lastBooking);
             itemWithDates.setNextBooking(nextBooking);
         }
@@ -61,10 +117,10 @@ public class ItemServiceImpl implements ItemService {
 
     @Transactional
     @Override
-    public ItemDto update(ItemDto itemDto, Long itemId, Long ownerId) {
-        Item item = getItemOptional(ownerId, itemId);
+    public ItemDto update(ItemDto itemDto, Long itemId, User owner) {
+        Item item = getItemOptional(itemId);
         itemDto.setId(itemId);
-        if (!item.getOwnerId().equals(ownerId)) {
+        if (!item.getOwnerId().equals(owner.getId())) {
             throw new NotFoundException("Item " + itemId + " can't be changed by this user");
         }
         if (itemDto.getName() != null && !itemDto.getName().equals(item.getName())) {
@@ -76,16 +132,49 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null && !itemDto.getAvailable().equals(item.getAvailable())) {
             item.setAvailable(itemDto.getAvailable());
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.put(savedItem);
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Override
-    public List<ItemBookingModel> findAllItemsByOwner(Long ownerId, Integer from, Integer size) {
-        userService.getUserOptional(ownerId);
+    public List<ItemBookingModel> findAllItemsByOwner(User owner, Integer from, Integer size) {
         PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
-        List<Item> items = itemRepository.findAllByOwnerId(ownerId, page);
+        List<Item> items = itemRepository.findAllByOwnerId(owner.getId(), page);
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        LocalDateTime currentTime = LocalDateTime.now();
+        Map<Long, BookingForItem> lastBookings;
+        Map<Long, BookingForItem> nextBookings;
+        if (bookingTimeline.isReady()) {
+            lastBookings = new HashMap<>();
+            nextBookings = new HashMap<>();
+            for (Long itemId : itemIds) {
+                lastBookings.put(itemId, bookingTimeline.getLastBooking(itemId, currentTime));
+                nextBookings.put(itemId, bookingTimeline.getNextBooking(itemId, currentTime));
+            }
+        } else {
+            lastBookings = groupByItem(
+                    bookingRepository.findLastBookingsForItems(itemIds, currentTime, BookingStatus.APPROVED));
+            nextBookings = groupByItem(
+                    bookingRepository.findNextBookingsForItems(itemIds, currentTime, BookingStatus.APPROVED));
+        }
+        Map<Long, List<CommentDto>> comments = commentRepository.findAllByItemIdIn(itemIds)
+                .stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(CommentMapper::toCommentDto, Collectors.toList())));
         return items.stream()
-                .map(item -> findItemById(ownerId, item.getId()))
+                .map(item -> {
+                    ItemBookingModel itemWithDates = ItemMapper.toItemWithDatesDto(item);
+                    itemWithDates.setLastBooking(lastBookings.get(item.getId()));
+                    itemWithDates.setNextBooking(nextBookings.get(item.getId()));
+                    itemWithDates.setComments(comments.getOrDefault(item.getId(), Collections.emptyList()));
+                    return itemWithDates;
+                })
                 .sorted(Comparator.comparing(ItemBookingModel::getId))
                 .collect(Collectors.toList());
     }
@@ -95,27 +184,114 @@ public class ItemServiceImpl implements ItemService {
         if (text.isEmpty()) {
             return Collections.emptyList();
         }
+        if (itemSearchIndex.isReady()) {
+            List<Long> ids = itemSearchIndex.search(text, from > 0 ? from / size * size : 0, size);
+            Map<Long, Item> items = itemRepository.findAllById(ids)
+                    .stream()
+                    .collect(Collectors.toMap(Item::getId, Function.identity()));
+            return ids.stream()
+                    .map(items::get)
+                    .filter(Objects::nonNull)
+                    .map(ItemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        }
         PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
         List<Item> items = itemRepository.findItemsByTextIgnoreCase(text.toLowerCase(), page);
         return ItemMapper.toItemDtoList(items);
     }
 
-    public CommentDto createComment(Long userId, Long itemId, CommentRequest commentRequest) {
-        List<Booking> bookings = bookingRepository.findByBookerIdAndItemId(userId, itemId)
+    public CommentDto createComment(User author, Long itemId, CommentRequest commentRequest) {
+        List<Booking> bookings = bookingRepository.findByBookerIdAndItemId(author.getId(), itemId)
                 .stream()
                 .filter(booking -> booking.getEnd().isBefore(LocalDateTime.now()))
                 .collect(Collectors.toList());
         if (bookings.isEmpty()) throw new ValidationException("Can't find bookings");
         Comment comment = CommentMapper.toComment(commentRequest);
-        comment.setItem(getItemOptional(userId, itemId));
-        comment.setAuthor(userService.getUserOptional(userId));
+        comment.setAuthor(author);
+        comment.setItem(itemRepository.findById(itemId)
+                .orElseThrow(() -> new NotFoundException("Can't find item id:" + itemId)));
         Comment newComment = commentRepository.save(comment);
         return CommentMapper.toCommentDto(newComment);
     }
 
-    private Item getItemOptional(Long userId, Long itemId) {
-        userService.getUserOptional(userId);
+    @Override
+    public ItemAvailability getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        checkPeriod(from, to);
+        Item item = getItemOptional(itemId);
+        boolean available = itemAvailabilityIndex.isReady()
+                ? itemAvailabilityIndex.isAvailable(itemId, from, to)
+                : !bookingRepository.existsOverlappingInStatuses(itemId, from, to,
+                ItemAvailabilityIndex.BLOCKING_STATUSES);
+        return new ItemAvailability(item.getId(), from, to, available && Boolean.TRUE.equals(item.getAvailable()));
+    }
+
+    @Override
+    public List<ItemDto> findAvailableItems(User owner, LocalDateTime from, LocalDateTime to) {
+        checkPeriod(from, to);
+        List<Item> items = itemRepository.findAllByOwnerIdOrderById(owner.getId())
+                .stream()
+                .filter(item -> Boolean.TRUE.equals(item.getAvailable()))
+                .collect(Collectors.toList());
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> bookedItemIds;
+        if (itemAvailabilityIndex.isReady()) {
+            bookedItemIds = items.stream()
+                    .map(Item::getId)
+                    .filter(itemId -> !itemAvailabilityIndex.isAvailable(itemId, from, to))
+                    .collect(Collectors.toSet());
+        } else {
+            List<Long> itemIds = items.stream()
+                    .map(Item::getId)
+                    .collect(Collectors.toList());
+            bookedItemIds = new HashSet<>(bookingRepository.findOverlappingItemIds(itemIds, from, to,
+                    ItemAvailabilityIndex.BLOCKING_STATUSES));
+        }
+        return items.stream()
+                .filter(item -> !bookedItemIds.contains(item.getId()))
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    private void checkPeriod(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Incorrect period");
+        }
+    }
+
+    private Map<Long, BookingForItem> groupByItem(List<BookingForItem> bookings) {
+        return bookings.stream()
+                .collect(Collectors.toMap(BookingForItem::getItemId, Function.identity(), (first, second) -> first));
+    }
+
+    private Item getItemOptional(Long itemId) {
         return itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Can't find item id:" + itemId));
     }
-}
\ No newline at end of file
+
+    private void saveChunk(List<Item> chunk, List<Long> importedIds) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Item> savedItems = itemRepository.saveAll(chunk);
+        if (itemSearchIndex.isEnabled()) {
+            savedItems.forEach(item -> importedIds.add(item.getId()));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        chunk.clear();
+    }
+
+    private static Item toNewItem(String position, ItemDto itemDto, Long ownerId) {
+        if (itemDto.getName() == null || itemDto.getName().isBlank()
+                || itemDto.getDescription() == null || itemDto.getDescription().isBlank()
+                || itemDto.getAvailable() == null) {
+            throw new ValidationException(position + ": name, description and available are required");
+        }
+        Item item = ItemMapper.toItem(itemDto);
+        item.setId(null);
+        item.setOwnerId(ownerId);
+        return item;
+    }
+}
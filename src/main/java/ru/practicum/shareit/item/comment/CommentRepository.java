@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +14,11 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
             "from Comment as c " +
             "where c.item.id = ?1")
     List<CommentDto> findAllByItem(Long itemId);
+
+    @Query("select c " +
+            "from Comment as c " +
+            "join fetch c.item " +
+            "join fetch c.author " +
+            "where c.item.id in ?1")
+    List<Comment> findAllByItemIdIn(Collection<Long> itemIds);
 }
@@ -5,7 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.paging.KeysetCursor;
+import ru.practicum.shareit.user.SharerUser;
+import ru.practicum.shareit.user.User;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
@@ -15,30 +19,40 @@ import java.util.List;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class ItemRequestController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     final ItemRequestService requestService;
 
     @PostMapping
-    public ItemRequestDto addRequest(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ItemRequestDto addRequest(@SharerUser User user,
                                      @RequestBody ItemDto itemRequestDto) {
-        return requestService.create(userId, itemRequestDto);
+        return requestService.create(user, itemRequestDto);
     }
 
     @GetMapping("/all")
     public List<ItemRequestDto> getAllRequests(@RequestParam(value = "from", defaultValue = "0") @PositiveOrZero int from,
                                                @RequestParam(value = "size", defaultValue = "20") @Positive int size,
-                                               @RequestHeader("X-Sharer-User-Id") long userId) {
-        return requestService.get(userId, from, size);
+                                               @RequestParam(value = "after", required = false) String after,
+                                               @SharerUser User user,
+                                               HttpServletResponse response) {
+        List<ItemRequestDto> requests = after == null
+                ? requestService.get(user, from, size)
+                : requestService.get(user, KeysetCursor.decode(after), size);
+        if (!requests.isEmpty() && requests.size() == size) {
+            ItemRequestDto last = requests.get(requests.size() - 1);
+            response.setHeader(NEXT_CURSOR_HEADER, new KeysetCursor(last.getCreated(), last.getId()).encode());
+        }
+        return requests;
     }
 
     @GetMapping("/{requestId}")
     public ItemRequestDto getRequestId(@PathVariable @Positive long requestId,
-                                       @RequestHeader("X-Sharer-User-Id") long userId) {
-        return requestService.getRequestId(requestId, userId);
+                                       @SharerUser User user) {
+        return requestService.getRequestId(requestId);
     }
 
     @GetMapping
-    public List<ItemRequestDto> getRequestByUserId(@RequestHeader("X-Sharer-User-Id") long userId) {
-        return requestService.getByUserId(userId);
+    public List<ItemRequestDto> getRequestByUserId(@SharerUser User user) {
+        return requestService.getByUser(user);
     }
 }
@@ -10,6 +10,8 @@ import ru.practicum.shareit.user.User;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
@@ -33,9 +35,11 @@ public class ItemRequestMapper {
     }
 
     public static List<ItemRequestDto> toiItemRequestDtoList(List<ItemRequest> itemRequests, List<ItemDto> requestItemDtos) {
+        Map<Long, List<ItemDto>> itemsByRequest = requestItemDtos.stream()
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
         List<ItemRequestDto> list = new ArrayList<>();
         for (ItemRequest itemRequest : itemRequests) {
-            list.add(toItemRequestDto(itemRequest, requestItemDtos));
+            list.add(toItemRequestDto(itemRequest, itemsByRequest.getOrDefault(itemRequest.getId(), new ArrayList<>())));
         }
         return list;
     }
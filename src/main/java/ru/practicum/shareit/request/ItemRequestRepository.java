@@ -2,12 +2,22 @@ package ru.practicum.shareit.request;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
     List<ItemRequest> findAllByRequesterOrderByCreatedDesc(long userId);
 
-    List<ItemRequest> findAllByRequesterIsNotOrderByCreatedDesc(long requester, Pageable page);
+    List<ItemRequest> findAllByRequesterIsNotOrderByCreatedDescIdDesc(long requester, Pageable page);
+
+    @Query("select r " +
+            "from ItemRequest as r " +
+            "where r.requester <> ?1 " +
+            "and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequesterIsNotBeforeCursor(long requester, LocalDateTime created, Long id,
+                                                          Pageable page);
 }
\ No newline at end of file
@@ -1,16 +1,20 @@
 package ru.practicum.shareit.request;
 
 import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.paging.KeysetCursor;
+import ru.practicum.shareit.user.User;
 
 import java.util.List;
 
 
 public interface ItemRequestService {
-    ItemRequestDto create(long userId, ItemDto itemRequestDto);
+    ItemRequestDto create(User user, ItemDto itemRequestDto);
 
-    List<ItemRequestDto> get(long userId, int from, int size);
+    List<ItemRequestDto> get(User user, int from, int size);
 
-    List<ItemRequestDto> getByUserId(long userId);
+    List<ItemRequestDto> get(User user, KeysetCursor after, int size);
 
-    ItemRequestDto getRequestId(long requestId, long userId);
+    List<ItemRequestDto> getByUser(User user);
+
+    ItemRequestDto getRequestId(long requestId);
 }
\ No newline at end of file
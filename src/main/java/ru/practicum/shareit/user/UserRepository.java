@@ -1,8 +1,41 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.CacheConfig;
+
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#p0", unless = "#result == null")
+    Optional<User> findById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0.id", condition = "#p0.id != null")
+    <S extends User> S save(S user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0.id", condition = "#p0.id != null")
+    <S extends User> S saveAndFlush(S user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0")
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true, condition = "#p0.?[id != null].size() > 0")
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0.id", condition = "#p0.id != null")
+    void delete(User user);
+
+    boolean existsByEmail(String email);
+
+    boolean existsByEmailAndIdNot(String email, Long id);
 }
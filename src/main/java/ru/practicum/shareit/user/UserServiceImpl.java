@@ -3,6 +3,8 @@ package ru.practicum.shareit.user;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.AlreadyExistsException;
@@ -15,6 +17,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class UserServiceImpl implements UserService {
+    private static final String EMAIL_CONSTRAINT = "UQ_USER_EMAIL";
+
     private final UserRepository userRepository;
 
     @Override
@@ -30,11 +34,10 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public UserDto create(UserDto userDto) {
-        String email = userDto.getEmail();
-        if (checkEmail(email)) {
+        if (userDto.getEmail() != null && userRepository.existsByEmail(userDto.getEmail())) {
             throw new AlreadyExistsException("Email address already in use");
         }
-        User user = userRepository.save(UserMapper.toUser(userDto));
+        User user = saveUser(UserMapper.toUser(userDto));
         return UserMapper.toUserDto(user);
     }
 
@@ -46,13 +49,13 @@ public class UserServiceImpl implements UserService {
         if (userDto.getName() != null && !userDto.getName().equals(user.getName())) {
             user.setName(userDto.getName());
         }
-        if (checkEmail(email) && !email.equals(user.getEmail())) {
+        if (email != null && userRepository.existsByEmailAndIdNot(email, user.getId())) {
             throw new AlreadyExistsException("Email address already in use");
         }
         if (email != null) {
             user.setEmail(email);
         }
-        user = userRepository.save(user);
+        user = saveUser(user);
         return UserMapper.toUserDto(user);
     }
 
@@ -62,10 +65,16 @@ public class UserServiceImpl implements UserService {
         userRepository.deleteById(id);
     }
 
-    private boolean checkEmail(String email) {
-        return userRepository.findAll()
-                .stream()
-                .anyMatch(user -> user.getEmail().equals(email));
+    private User saveUser(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            if (message != null && message.toUpperCase().contains(EMAIL_CONSTRAINT)) {
+                throw new AlreadyExistsException("Email address already in use");
+            }
+            throw e;
+        }
     }
 
     @Override
@@ -1,6 +1,4 @@
-DROP TABLE IF EXISTS users, items, films, comments, bookings;
-
-CREATE TABLE IF NOT EXISTS users (
+CREATE TABLE users (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   name VARCHAR(255) NOT NULL,
   email VARCHAR(512) NOT NULL,
@@ -8,7 +6,7 @@ CREATE TABLE IF NOT EXISTS users (
   CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
 
-CREATE TABLE IF NOT EXISTS items (
+CREATE TABLE items (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   owner_id BIGINT NOT NULL,
   name VARCHAR(255) NOT NULL,
@@ -19,7 +17,7 @@ CREATE TABLE IF NOT EXISTS items (
   CONSTRAINT fk_owner_id FOREIGN KEY(owner_id) REFERENCES users(id)
 );
 
-CREATE TABLE IF NOT EXISTS comments (
+CREATE TABLE comments (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   text varchar(512),
   item_id BIGINT NOT NULL,
@@ -30,7 +28,7 @@ CREATE TABLE IF NOT EXISTS comments (
   CONSTRAINT fk_author_id FOREIGN KEY(author_id) REFERENCES users(id)
 );
 
-CREATE TABLE IF NOT EXISTS bookings (
+CREATE TABLE bookings (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   start_date TIMESTAMP WITHOUT TIME ZONE,
   end_date TIMESTAMP WITHOUT TIME ZONE,
@@ -42,11 +40,11 @@ CREATE TABLE IF NOT EXISTS bookings (
   CONSTRAINT fk_booker_id FOREIGN KEY(booker_id) REFERENCES users(id)
 );
 
-CREATE TABLE IF NOT EXISTS requests (
+CREATE TABLE requests (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   description VARCHAR (512) NOT NULL,
   user_id BIGINT,
   created TIMESTAMP WITHOUT TIME ZONE,
   CONSTRAINT pk_requests PRIMARY KEY (id),
   CONSTRAINT fk_request_user FOREIGN KEY (user_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
@@ -0,0 +1,32 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS ix_items_name_trgm ON items USING gin (lower(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS ix_items_description_trgm ON items USING gin (lower(description) gin_trgm_ops);
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Exclusion constraints can't be added NOT VALID, so approved bookings that already overlap would fail the whole
+-- migration. Walk them in id order and reject every one that overlaps an earlier booking still approved for the
+-- same item: the first approval wins, as it would have with the constraint in place. Rejected ids are logged.
+DO $$
+DECLARE
+  booking RECORD;
+BEGIN
+  FOR booking IN SELECT id, item_id, start_date, end_date FROM bookings WHERE status = 'APPROVED' ORDER BY id LOOP
+    IF EXISTS (SELECT 1 FROM bookings earlier
+               WHERE earlier.item_id = booking.item_id
+                 AND earlier.status = 'APPROVED'
+                 AND earlier.id < booking.id
+                 AND tsrange(earlier.start_date, earlier.end_date)
+                     && tsrange(booking.start_date, booking.end_date)) THEN
+      UPDATE bookings SET status = 'REJECTED' WHERE id = booking.id;
+      RAISE NOTICE 'Rejected booking % overlapping an earlier approved booking of item %', booking.id, booking.item_id;
+    END IF;
+  END LOOP;
+END $$;
+
+ALTER TABLE bookings DROP CONSTRAINT IF EXISTS ex_bookings_approved_overlap;
+
+ALTER TABLE bookings ADD CONSTRAINT ex_bookings_approved_overlap
+  EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status = 'APPROVED');
@@ -0,0 +1,8 @@
+-- Hibernate's pooled optimizer hands out the ids below each value it fetches, so a column default of
+-- nextval('bookings_seq') could reuse an id Hibernate has already assigned. The column has no default; raw inserts
+-- must supply an id.
+CREATE SEQUENCE IF NOT EXISTS bookings_seq INCREMENT BY 50;
+
+SELECT setval('bookings_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM bookings), false);
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,6 @@
+-- Same as bookings_seq in V4: no nextval default, it would hand out ids inside Hibernate's pooled blocks.
+CREATE SEQUENCE IF NOT EXISTS items_seq INCREMENT BY 50;
+
+SELECT setval('items_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM items), false);
+
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,91 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitFilterTest {
+    final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 50);
+    final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(ConcurrencyLimitFilter.class);
+
+    @Test
+    void shouldRegisterFilterOnlyWhenEnabled() {
+        contextRunner.run(context ->
+                assertEquals(0, context.getBeanNamesForType(ConcurrencyLimitFilter.class).length));
+        contextRunner.withPropertyValues("shareit.web.concurrency-limit.enabled=true")
+                .run(context -> assertEquals(1, context.getBeanNamesForType(ConcurrencyLimitFilter.class).length));
+    }
+
+    @Test
+    void shouldRejectRequestsBeyondPoolSizedLimitAndReleasePermits() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        MockHttpServletResponse blocked = new MockHttpServletResponse();
+        Future<?> holder = executor.submit(() -> {
+            filter.doFilter(request("/items"), blocked, (request, response) -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return null;
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("/items"), rejected, (request, response) -> {
+        });
+        assertEquals(503, rejected.getStatus());
+
+        MockHttpServletResponse actuator = new MockHttpServletResponse();
+        filter.doFilter(request("/actuator/health"), actuator, (request, response) -> {
+        });
+        assertEquals(200, actuator.getStatus());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(request("/items"), admitted, (request, response) -> {
+        });
+        assertEquals(200, blocked.getStatus());
+        assertEquals(200, admitted.getStatus());
+    }
+
+    @Test
+    void shouldNotLimitActuatorUnderContextPath() throws Exception {
+        ConcurrencyLimitFilter exhausted = new ConcurrencyLimitFilter(0, 0);
+        MockHttpServletRequest actuator = request("/shareit", "/actuator/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exhausted.doFilter(actuator, response, (request, resp) -> {
+        });
+        assertEquals(200, response.getStatus());
+
+        MockHttpServletRequest items = request("/shareit", "/items");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        exhausted.doFilter(items, rejected, (request, resp) -> {
+        });
+        assertEquals(503, rejected.getStatus());
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return request("", uri);
+    }
+
+    private static MockHttpServletRequest request(String contextPath, String servletPath) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", contextPath + servletPath);
+        request.setContextPath(contextPath);
+        request.setServletPath(servletPath);
+        return request;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class MetricsTest {
+    final MockMvc mockMvc;
+
+    @Test
+    void shouldExposeEndpointRepositoryAndPoolMetricsInPrometheusFormat() throws Exception {
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/bookings")
+                        .param("state", "WAITING")
+                        .header("X-Sharer-User-Id", 99))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("uri=\"/bookings\"")))
+                .andExpect(content().string(containsString("state=\"WAITING\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count")))
+                .andExpect(content().string(containsString("repository=\"UserRepository\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")));
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.diagnostics.CapturingStatementInspector;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.comment.CommentRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the repository methods, captures the SQL Hibernate generates for them and checks its H2 plan for table scans.
+ */
+@SpringBootTest(properties = CapturingStatementInspector.PROPERTY)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class SchemaIndexTest {
+    static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+    static final List<Long> IDS = List.of(1L, 2L);
+    static final List<BookingStatus> STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    static final PageRequest PAGE = PageRequest.of(0, 20);
+
+    final JdbcTemplate jdbcTemplate;
+    final TransactionTemplate transactionTemplate;
+    final BookingRepository bookingRepository;
+    final ItemRepository itemRepository;
+    final CommentRepository commentRepository;
+    final ItemRequestRepository itemRequestRepository;
+    final UserRepository userRepository;
+
+    @Test
+    void bookingItemQueriesShouldBeIndexServed() {
+        assertIndexServed(() -> bookingRepository.findNextBookingForItem(1L, NOW, BookingStatus.APPROVED, PAGE));
+        assertIndexServed(() -> bookingRepository.findLastBookingForItem(1L, NOW, BookingStatus.APPROVED, PAGE));
+        assertIndexServed(() -> bookingRepository.findLastBookingsForItems(IDS, NOW, BookingStatus.APPROVED));
+        assertIndexServed(() -> bookingRepository.findNextBookingsForItems(IDS, NOW, BookingStatus.APPROVED));
+        assertIndexServed(() -> bookingRepository.findOverlappingSlots(IDS, NOW, NOW.plusDays(1),
+                BookingStatus.APPROVED));
+        assertIndexServed(() -> bookingRepository.existsOverlapping(1L, NOW, NOW.plusDays(1),
+                BookingStatus.APPROVED));
+        assertIndexServed(() -> bookingRepository.existsOverlappingInStatuses(1L, NOW, NOW.plusDays(1), STATUSES));
+        assertIndexServed(() -> bookingRepository.findOverlappingItemIds(IDS, NOW, NOW.plusDays(1), STATUSES));
+        assertIndexServed(() -> bookingRepository.findByBookerIdAndItemId(1L, 1L));
+    }
+
+    @Test
+    void bookingBookerQueriesShouldBeIndexServed() {
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdOrderByStartDescIdDesc(1L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDescIdDesc(1L, NOW,
+                PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDescIdDesc(1L, NOW,
+                PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdCurrentBookings(1L, NOW, PAGE));
+        assertIndexServed(() -> bookingRepository.findALLByBookerIdAndStatusOrderByStartDescIdDesc(1L,
+                BookingStatus.WAITING, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdBeforeCursor(1L, NOW, 5L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdPastBeforeCursor(1L, NOW, NOW, 5L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdFutureBeforeCursor(1L, NOW, NOW, 5L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdCurrentBeforeCursor(1L, NOW, NOW, 5L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByBookerIdAndStatusBeforeCursor(1L, BookingStatus.WAITING,
+                NOW, 5L, PAGE));
+        assertIndexServed(() -> transactionTemplate.executeWithoutResult(status ->
+                bookingRepository.streamAllByBookerId(1L).close()));
+    }
+
+    @Test
+    void bookingOwnerQueriesShouldBeIndexServed() {
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdOrderByStartDescIdDesc(1L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdAndEndIsBeforeOrderByStartDescIdDesc(1L, NOW,
+                PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdAndStartAfterOrderByStartDescIdDesc(1L, NOW,
+                PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdCurrentBookings(1L, NOW, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdAndStatusOrderByStartDescIdDesc(1L,
+                BookingStatus.WAITING, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdBeforeCursor(1L, NOW, 5L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdPastBeforeCursor(1L, NOW, NOW, 5L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdFutureBeforeCursor(1L, NOW, NOW, 5L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdCurrentBeforeCursor(1L, NOW, NOW, 5L, PAGE));
+        assertIndexServed(() -> bookingRepository.findAllByOwnerIdAndStatusBeforeCursor(1L, BookingStatus.WAITING,
+                NOW, 5L, PAGE));
+        assertIndexServed(() -> transactionTemplate.executeWithoutResult(status ->
+                bookingRepository.streamAllByOwnerId(1L).close()));
+    }
+
+    @Test
+    void itemAndCommentQueriesShouldBeIndexServed() {
+        assertIndexServed(() -> itemRepository.findAllByOwnerId(1L, PAGE));
+        assertIndexServed(() -> itemRepository.findAllByOwnerIdOrderById(1L));
+        assertIndexServed(() -> itemRepository.findAllByRequestIdIn(IDS));
+        assertIndexServed(() -> itemRepository.findDetachedByIdIn(IDS));
+        assertIndexServed(() -> transactionTemplate.executeWithoutResult(status ->
+                itemRepository.findByIdForUpdate(1L)));
+        assertIndexServed(() -> commentRepository.findAllByItem(1L));
+        assertIndexServed(() -> commentRepository.findAllByItemIdIn(IDS));
+    }
+
+    @Test
+    void requestAndUserQueriesShouldBeIndexServed() {
+        assertIndexServed(() -> itemRequestRepository.findAllByRequesterOrderByCreatedDesc(1L));
+        assertIndexServed(() -> itemRequestRepository.findAllByRequesterIsNotOrderByCreatedDescIdDesc(1L, PAGE));
+        assertIndexServed(() -> itemRequestRepository.findAllByRequesterIsNotBeforeCursor(1L, NOW, 5L, PAGE));
+        assertIndexServed(() -> userRepository.existsByEmail("john.doe@mail.com"));
+    }
+
+    private void assertIndexServed(Runnable repositoryCall) {
+        CapturingStatementInspector.capture();
+        List<String> statements;
+        try {
+            repositoryCall.run();
+        } finally {
+            statements = CapturingStatementInspector.release();
+        }
+        assertFalse(statements.isEmpty(), "no SQL captured");
+        statements.forEach(this::assertIndexServed);
+    }
+
+    private void assertIndexServed(String sql) {
+        String plan = jdbcTemplate.query("EXPLAIN " + sql, SchemaIndexTest::bindSampleValues,
+                rs -> rs.next() ? rs.getString(1) : null);
+        assertTrue(plan != null && plan.contains("/* PUBLIC."), sql);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    // H2 picks indexes when it prepares the statement, so any value of the right type gives the same plan.
+    private static void bindSampleValues(PreparedStatement statement) throws SQLException {
+        ParameterMetaData metaData = statement.getParameterMetaData();
+        for (int i = 1; i <= metaData.getParameterCount(); i++) {
+            switch (metaData.getParameterType(i)) {
+                case Types.TIMESTAMP:
+                    statement.setTimestamp(i, Timestamp.valueOf(NOW));
+                    break;
+                case Types.VARCHAR:
+                    statement.setString(i, BookingStatus.APPROVED.name());
+                    break;
+                default:
+                    statement.setLong(i, 1L);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.exception.UnavailableException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookingConcurrencyTest {
+    static final int ITEMS = 4;
+    static final int BOOKINGS_PER_ITEM = 25;
+    static final int THREADS = 8;
+
+    final BookingService bookingService;
+    final BookingRepository bookingRepository;
+    final ItemRepository itemRepository;
+    final UserRepository userRepository;
+
+    @Test
+    void shouldApproveOnlyOneOfOverlappingBookingsUnderConcurrentLoad() throws Exception {
+        User owner = userRepository.save(User.builder()
+                .name("Jane")
+                .email("jane.doe@mail.com")
+                .build());
+        User booker = userRepository.save(User.builder()
+                .name("John")
+                .email("john.doe@mail.com")
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = itemRepository.save(Item.builder()
+                    .name("item" + i)
+                    .description("desc")
+                    .available(true)
+                    .ownerId(owner.getId())
+                    .build());
+            for (int j = 0; j < BOOKINGS_PER_ITEM; j++) {
+                bookings.add(bookingRepository.save(new Booking(null, start.plusMinutes(j),
+                        start.plusHours(2).plusMinutes(j), item, booker, BookingStatus.WAITING)));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<Object>> futures = new ArrayList<>();
+        for (Booking booking : bookings) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    bookingService.updateBookingStatus(owner, booking.getId(), true);
+                } catch (UnavailableException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        startSignal.countDown();
+        for (Future<Object> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+        log.info("Processed {} concurrent approvals in {} ms ({} approvals/s)", bookings.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                bookings.size() * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1));
+        long approved = bookingRepository.findAll()
+                .stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                .count();
+        assertEquals(ITEMS, approved);
+        assertEquals(bookings.size() - ITEMS, rejected.get());
+    }
+}
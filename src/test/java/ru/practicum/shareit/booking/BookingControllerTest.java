@@ -16,16 +16,22 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.paging.KeysetCursor;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -41,6 +47,10 @@ public class BookingControllerTest {
     ObjectMapper objectMapper;
     @MockBean
     BookingServiceImpl bookingService;
+    @MockBean
+    UserService userService;
+    @MockBean
+    BookingFeed bookingFeed;
     User user;
     BookingRequest bookingRequest;
     BookingDto bookingDto;
@@ -65,7 +75,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldThrowExceptionUpdatingUserWithoutBooking() throws Exception {
-        when(bookingService.updateBookingStatus(anyLong(), anyLong(), anyBoolean()))
+        when(bookingService.updateBookingStatus(any(), anyLong(), anyBoolean()))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
         mockMvc.perform(patch("/bookings/{bookingId}?approved=true", 99)
                         .header("X-Sharer-User-Id", 1))
@@ -74,7 +84,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldThrowExceptionWhileUpdatingStatusWithWrongUser() throws Exception {
-        when(bookingService.updateBookingStatus(anyLong(), anyLong(), anyBoolean()))
+        when(bookingService.updateBookingStatus(any(), anyLong(), anyBoolean()))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
         mockMvc.perform(patch("/bookings/{bookingId}?approved=true", 1)
                         .header("X-Sharer-User-Id", 99))
@@ -83,7 +93,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldCreateBookingNormal() throws Exception {
-        when(bookingService.addBooking(anyLong(), any())).thenReturn(bookingDto);
+        when(bookingService.addBooking(any(), any())).thenReturn(bookingDto);
         String jsonBooking = objectMapper.writeValueAsString(bookingRequest);
         mockMvc.perform(post("/bookings")
                         .header("X-Sharer-User-Id", user.getId())
@@ -100,9 +110,26 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.booker.name").value("John"));
     }
 
+    @Test
+    public void shouldExportBookingsAsNdjson() throws Exception {
+        when(userService.getUserOptional(user.getId())).thenReturn(user);
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(1);
+            consumer.accept(bookingDto);
+            consumer.accept(bookingDto);
+            return null;
+        }).when(bookingService).exportBookerItemsBookings(eq(user), any());
+        String line = objectMapper.writeValueAsString(bookingDto) + "\n";
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andExpect(content().string(line + line));
+    }
+
     @Test
     public void shouldGetBookingsById() throws Exception {
-        when(bookingService.getBookingById(anyLong(), anyLong())).thenReturn(bookingDto);
+        when(bookingService.getBookingById(any(), anyLong())).thenReturn(bookingDto);
         mockMvc.perform(get("/bookings/{id}", 1)
                         .header("X-Sharer-User-Id", 1))
                 .andDo(print())
@@ -121,7 +148,7 @@ public class BookingControllerTest {
     public void shouldUpdateStatus() throws Exception {
         bookingDto.setStatus(BookingStatus.APPROVED);
 
-        when(bookingService.updateBookingStatus(anyLong(), anyLong(), anyBoolean())).thenReturn(bookingDto);
+        when(bookingService.updateBookingStatus(any(), anyLong(), anyBoolean())).thenReturn(bookingDto);
 
         mockMvc.perform(patch("/bookings/{bookingId}?approved=true", 1)
                         .header("X-Sharer-User-Id", 1))
@@ -132,7 +159,7 @@ public class BookingControllerTest {
     @Test
     public void shouldUpdateStatusToRejected() throws Exception {
         bookingDto.setStatus(BookingStatus.REJECTED);
-        when(bookingService.updateBookingStatus(anyLong(), anyLong(), anyBoolean())).thenReturn(bookingDto);
+        when(bookingService.updateBookingStatus(any(), anyLong(), anyBoolean())).thenReturn(bookingDto);
         mockMvc.perform(patch("/bookings/{bookingId}?approved=false", 1)
                         .header("X-Sharer-User-Id", 1))
                 .andExpect(status().isOk())
@@ -141,7 +168,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldReturnAllBookingsForUser() throws Exception {
-        when(bookingService.getAllBookerBookings(anyLong(), anyString(), anyInt(), anyInt()))
+        when(bookingService.getAllBookerBookings(any(), anyString(), anyInt(), anyInt()))
                 .thenReturn(List.of(bookingDto, bookingDto, bookingDto));
         mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 2))
@@ -153,11 +180,34 @@ public class BookingControllerTest {
     @Test
     public void shouldReturnAllBookingsForUser2() throws Exception {
         bookingDto.setBooker(user);
-        when(bookingService.getAllBookerItemsBooking(anyLong(), anyString(), anyInt(), anyInt()))
+        when(bookingService.getAllBookerItemsBooking(any(), anyString(), anyInt(), anyInt()))
                 .thenReturn(List.of(bookingDto));
         mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1))
                 .andDo(print())
                 .andExpect(status().isOk());
     }
+
+    @Test
+    public void shouldReturnBookingsAfterCursorWithNextCursorHeader() throws Exception {
+        KeysetCursor cursor = new KeysetCursor(bookingDto.getStart().plusDays(1), 5L);
+        when(bookingService.getAllBookerBookings(any(), anyString(), any(KeysetCursor.class), anyInt()))
+                .thenReturn(List.of(bookingDto));
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 2)
+                        .param("after", cursor.encode())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string(BookingController.NEXT_CURSOR_HEADER,
+                        new KeysetCursor(bookingDto.getStart(), bookingDto.getId()).encode()));
+    }
+
+    @Test
+    public void shouldRejectMalformedCursor() throws Exception {
+        mockMvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
 }
\ No newline at end of file
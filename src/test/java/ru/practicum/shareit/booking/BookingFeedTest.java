@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = "shareit.booking.feed.enabled=true")
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookingFeedTest {
+    final MockMvc mockMvc;
+    final BookingFeed bookingFeed;
+    final BookingService bookingService;
+    final UserRepository userRepository;
+    final ItemRepository itemRepository;
+
+    @Test
+    void shouldPushCommittedBookingChangesToBookerAndOwnerStreams() throws Exception {
+        User owner = userRepository.save(User.builder()
+                .name("Jane")
+                .email("jane.doe@mail.com")
+                .build());
+        User booker = userRepository.save(User.builder()
+                .name("John")
+                .email("john.doe@mail.com")
+                .build());
+        Item item = itemRepository.save(Item.builder()
+                .name("drill")
+                .description("desc")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+        MvcResult ownerFeed = subscribe(owner.getId());
+        MvcResult bookerFeed = subscribe(booker.getId());
+        assertEquals(2, bookingFeed.getSubscriberCount());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto booking = bookingService.addBooking(booker,
+                new BookingRequest(item.getId(), start, start.plusDays(1)));
+        bookingService.updateBookingStatus(owner, booking.getId(), true);
+
+        awaitEvents(ownerFeed, 2);
+        awaitEvents(bookerFeed, 2);
+        String events = bookerFeed.getResponse().getContentAsString();
+        assertTrue(events.contains("\"status\":\"WAITING\""), events);
+        assertTrue(events.contains("\"status\":\"APPROVED\""), events);
+    }
+
+    private MvcResult subscribe(Long userId) throws Exception {
+        return mockMvc.perform(get("/bookings/feed").header("X-Sharer-User-Id", userId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static void awaitEvents(MvcResult feed, int events) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        int received = 0;
+        while (System.nanoTime() < deadline) {
+            received = feed.getResponse().getContentAsString().split("event:" + BookingFeed.EVENT).length - 1;
+            if (received >= events) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        assertEquals(events, received);
+    }
+}
@@ -0,0 +1,175 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.comment.Comment;
+import ru.practicum.shareit.item.comment.CommentRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class BookingRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    User owner;
+
+    User booker;
+
+    List<Item> items;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(User.builder()
+                .name("Jane")
+                .email("jane.doe@mail.com")
+                .build());
+        booker = entityManager.persist(User.builder()
+                .name("John")
+                .email("john.doe@mail.com")
+                .build());
+        items = List.of(persistItem("drill"), persistItem("saw"), persistItem("hammer"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 6; i++) {
+            Item item = items.get(i % items.size());
+            entityManager.persist(new Booking(null, now.plusDays(i), now.plusDays(i + 1), item, booker,
+                    BookingStatus.WAITING));
+            entityManager.persist(Comment.builder()
+                    .text("text" + i)
+                    .item(item)
+                    .author(booker)
+                    .created(now)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldLoadBookerBookingsWithItemAndBookerInOneStatement() {
+        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByStartDescIdDesc(booker.getId(),
+                PageRequest.of(0, 10));
+        assertEquals(6, bookings.size());
+        assertAssociationsLoaded(bookings);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldLoadOwnerBookingsWithItemAndBookerInOneStatement() {
+        List<Booking> bookings = bookingRepository.findAllByOwnerIdAndStatusOrderByStartDescIdDesc(owner.getId(),
+                BookingStatus.WAITING, PageRequest.of(0, 10));
+        assertEquals(6, bookings.size());
+        assertAssociationsLoaded(bookings);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldContinueOffsetPageWithCursorWhenStartsAreEqual() {
+        LocalDateTime start = LocalDateTime.now().plusYears(1).withNano(0);
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(new Booking(null, start, start.plusDays(1), items.get(0), booker,
+                    BookingStatus.APPROVED));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        List<Booking> first = bookingRepository.findAllByOwnerIdOrderByStartDescIdDesc(owner.getId(),
+                PageRequest.of(0, 2));
+        Booking last = first.get(1);
+        List<Booking> next = bookingRepository.findAllByOwnerIdBeforeCursor(owner.getId(), last.getStart(),
+                last.getId(), PageRequest.of(0, 10));
+        List<Long> ids = new ArrayList<>();
+        first.forEach(booking -> ids.add(booking.getId()));
+        next.forEach(booking -> ids.add(booking.getId()));
+        assertEquals(9, ids.size());
+        assertEquals(9, new HashSet<>(ids).size());
+        assertTrue(first.get(0).getId() > last.getId());
+    }
+
+    @Test
+    void shouldLoadBookingByIdWithItemAndBookerInOneStatement() {
+        Booking booking = bookingRepository.findAll().get(0);
+        entityManager.clear();
+        statistics.clear();
+        assertAssociationsLoaded(List.of(bookingRepository.findById(booking.getId()).orElseThrow()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldStreamOwnerBookingsWithItemAndBookerInOneStatement() {
+        List<Booking> bookings;
+        try (Stream<Booking> stream = bookingRepository.streamAllByOwnerId(owner.getId())) {
+            bookings = stream.collect(Collectors.toList());
+        }
+        assertEquals(6, bookings.size());
+        assertTrue(bookings.get(0).getStart().isAfter(bookings.get(5).getStart()));
+        assertAssociationsLoaded(bookings);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldNotLoadItemsAndAuthorsForBookingListsAndCommentProjections() {
+        bookingRepository.findByBookerIdAndItemId(booker.getId(), items.get(0).getId());
+        commentRepository.findAllByItem(items.get(0).getId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void shouldLoadCommentsOfSeveralItemsInOneStatement() {
+        List<Comment> comments = commentRepository.findAllByItemIdIn(List.of(items.get(0).getId(),
+                items.get(1).getId()));
+        assertEquals(4, comments.size());
+        assertTrue(comments.stream().allMatch(comment -> Hibernate.isInitialized(comment.getAuthor())));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private Item persistItem(String name) {
+        return entityManager.persist(Item.builder()
+                .name(name)
+                .description("desc")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+    }
+
+    private void assertAssociationsLoaded(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            assertTrue(Hibernate.isInitialized(booking.getItem()));
+            assertTrue(Hibernate.isInitialized(booking.getBooker()));
+        }
+    }
+}
@@ -5,28 +5,38 @@ import lombok.experimental.FieldDefaults;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UnavailableException;
 import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemAvailabilityIndex;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentDto;
+import ru.practicum.shareit.paging.KeysetCursor;
 import ru.practicum.shareit.request.ItemRequestDto;
 import ru.practicum.shareit.user.User;
-import ru.practicum.shareit.user.UserRepository;
 
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.lenient;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @FieldDefaults(level = AccessLevel.PRIVATE)
@@ -35,10 +45,19 @@ public class BookingServiceTest {
     BookingRepository bookingRepository;
 
     @Mock
-    UserRepository userRepository;
+    ItemRepository itemRepository;
 
     @Mock
-    ItemRepository itemRepository;
+    BookingTimeline bookingTimeline;
+
+    @Mock
+    ItemAvailabilityIndex itemAvailabilityIndex;
+
+    @Mock
+    BookingFeed bookingFeed;
+
+    @Mock
+    EntityManager entityManager;
 
     @InjectMocks
     BookingServiceImpl bookingService;
@@ -65,8 +84,6 @@ public class BookingServiceTest {
                 .name("Jane")
                 .email("jane.doe@mail.com")
                 .build();
-        lenient().when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        lenient().when(userRepository.findById(user1.getId())).thenReturn(Optional.of(user1));
         item = new Item(1L, "item", "desc", true, 2L, 1L);
         booking = new Booking(1L, currentTime, currentTime.plusHours(1), item, user, BookingStatus.APPROVED);
         futureBooking = new Booking(2L, futureTime, futureTime.plusHours(1), item, user, BookingStatus.APPROVED);
@@ -74,13 +91,13 @@ public class BookingServiceTest {
     }
 
     @Test
-    void shouldThrowExceptionWhileAddingBookingWithWrongUserId() {
-        LocalDateTime newStart = LocalDateTime.now();
-        LocalDateTime newEnd = newStart.minusDays(1);
-        BookingRequest newBookingRequest = new BookingRequest(item.getId(), newStart, newEnd);
+    void shouldThrowExceptionWhileAddingBookingWithWrongItemId() {
+        LocalDateTime newStart = LocalDateTime.now().plusDays(1);
+        BookingRequest newBookingRequest = new BookingRequest(0L, newStart, newStart.plusDays(1));
+        when(itemRepository.findById(0L)).thenReturn(Optional.empty());
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> bookingService.addBooking(0L, newBookingRequest));
-        assertEquals("Can't find user id:" + 0L, ex.getMessage());
+                () -> bookingService.addBooking(user, newBookingRequest));
+        assertEquals("Can't find item id:" + 0L, ex.getMessage());
     }
 
     @Test
@@ -89,10 +106,9 @@ public class BookingServiceTest {
         LocalDateTime newEnd = newStart.minusDays(1);
         BookingRequest newBookingRequest = new BookingRequest(item.getId(), newStart, newEnd);
         item.setAvailable(false);
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
         when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
         UnavailableException ex = assertThrows(UnavailableException.class,
-                () -> bookingService.addBooking(user.getId(), newBookingRequest));
+                () -> bookingService.addBooking(user, newBookingRequest));
         assertEquals("Booking is unavailable", ex.getMessage());
     }
 
@@ -100,7 +116,7 @@ public class BookingServiceTest {
     void shouldFindBookingById() {
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
         BookingDto expectedBooking = BookingMapper.toBookingDto(booking);
-        BookingDto actualBooking = bookingService.getBookingById(user.getId(), booking.getId());
+        BookingDto actualBooking = bookingService.getBookingById(user, booking.getId());
         assertEquals(expectedBooking, actualBooking);
     }
 
@@ -108,7 +124,7 @@ public class BookingServiceTest {
     void shouldThrowExceptionWhileFindingBookingByWrongId() {
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> bookingService.getBookingById(user.getId(), 0L));
+                () -> bookingService.getBookingById(user, 0L));
         assertEquals("Can't find booking id:" + 0L, ex.getMessage());
     }
 
@@ -119,92 +135,91 @@ public class BookingServiceTest {
                 .name("Bob")
                 .email("bob.doe@mail.com")
                 .build();
-        when(userRepository.findById(user2.getId())).thenReturn(Optional.of(user2));
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> bookingService.getBookingById(3L, booking.getId()));
+                () -> bookingService.getBookingById(user2, booking.getId()));
         assertEquals("Booking is unavailable", ex.getMessage());
     }
 
     @Test
     void shouldFindListOfALLBookings() {
         bookings = List.of(booking, futureBooking, pastBooking);
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(anyLong(), any())).thenReturn(bookings);
-        List<BookingDto> bookings = bookingService.getAllBookerBookings(1L, "ALL", 0, 10);
+        when(bookingRepository.findAllByBookerIdOrderByStartDescIdDesc(anyLong(), any())).thenReturn(bookings);
+        List<BookingDto> bookings = bookingService.getAllBookerBookings(user, "ALL", 0, 10);
         assertEquals(3, bookings.size());
     }
 
     @Test
     void shouldFindListOfREJECTEDBookings() {
-        List<BookingDto> bookingsR = bookingService.getAllBookerBookings(1L, "REJECTED", 0, 10);
+        List<BookingDto> bookingsR = bookingService.getAllBookerBookings(user, "REJECTED", 0, 10);
         assertEquals(0, bookingsR.size());
     }
 
     @Test
     void shouldFindListOfPASTBookings() {
-        List<BookingDto> bookingsP = bookingService.getAllBookerBookings(1L, "PAST", 0, 10);
+        List<BookingDto> bookingsP = bookingService.getAllBookerBookings(user, "PAST", 0, 10);
         assertEquals(0, bookingsP.size());
     }
 
     @Test
     void shouldFindListOfCURRENTBookings() {
-        List<BookingDto> bookingsC = bookingService.getAllBookerBookings(1L, "CURRENT", 0, 10);
+        List<BookingDto> bookingsC = bookingService.getAllBookerBookings(user, "CURRENT", 0, 10);
         assertEquals(0, bookingsC.size());
     }
 
     @Test
     void shouldFindListOfWAITINGBookings() {
-        List<BookingDto> bookingsW = bookingService.getAllBookerBookings(1L, "WAITING", 0, 10);
+        List<BookingDto> bookingsW = bookingService.getAllBookerBookings(user, "WAITING", 0, 10);
         assertEquals(0, bookingsW.size());
     }
 
     @Test
     void shouldFindListOfFUTUREBookings() {
-        List<BookingDto> bookingsF = bookingService.getAllBookerBookings(1L, "FUTURE", 0, 10);
+        List<BookingDto> bookingsF = bookingService.getAllBookerBookings(user, "FUTURE", 0, 10);
         assertEquals(0, bookingsF.size());
     }
 
     @Test
     void shouldThrowExceptionWhileGettingBookingsIfStateIsWrong() {
         assertThrows(IllegalArgumentException.class, () ->
-                bookingService.getAllBookerBookings(1L, "WRONG_STATE", 0, 10));
+                bookingService.getAllBookerBookings(user, "WRONG_STATE", 0, 10));
     }
 
     @Test
     void shouldFindListOfAllBookingsWithStateALL() {
         bookings = List.of(booking, futureBooking, pastBooking);
-        when(bookingRepository.findAllByOwnerIdOrderByStartDesc(anyLong(), any())).thenReturn(bookings);
-        List<BookingDto> bookings = bookingService.getAllBookerItemsBooking(2L, "ALL", 0, 10);
+        when(bookingRepository.findAllByOwnerIdOrderByStartDescIdDesc(anyLong(), any())).thenReturn(bookings);
+        List<BookingDto> bookings = bookingService.getAllBookerItemsBooking(user1, "ALL", 0, 10);
         assertEquals(3, bookings.size());
     }
 
     @Test
     void shouldFindListOfAllBookingsWithStateREJECTED() {
-        List<BookingDto> bookingsR = bookingService.getAllBookerItemsBooking(2L, "REJECTED", 0, 10);
+        List<BookingDto> bookingsR = bookingService.getAllBookerItemsBooking(user1, "REJECTED", 0, 10);
         assertEquals(0, bookingsR.size());
     }
 
     @Test
     void shouldFindListOfAllBookingsWithStateWAITING() {
-        List<BookingDto> bookingsW = bookingService.getAllBookerItemsBooking(2L, "WAITING", 0, 10);
+        List<BookingDto> bookingsW = bookingService.getAllBookerItemsBooking(user1, "WAITING", 0, 10);
         assertEquals(0, bookingsW.size());
     }
 
     @Test
     void shouldFindListOfAllBookingsWithStateCURRENT() {
-        List<BookingDto> bookingsC = bookingService.getAllBookerItemsBooking(2L, "CURRENT", 0, 10);
+        List<BookingDto> bookingsC = bookingService.getAllBookerItemsBooking(user1, "CURRENT", 0, 10);
         assertEquals(0, bookingsC.size());
     }
 
     @Test
     void shouldFindListOfAllBookingsWithStateFUTURE() {
-        List<BookingDto> bookingsF = bookingService.getAllBookerItemsBooking(2L, "FUTURE", 0, 10);
+        List<BookingDto> bookingsF = bookingService.getAllBookerItemsBooking(user1, "FUTURE", 0, 10);
         assertEquals(0, bookingsF.size());
     }
 
     @Test
     void shouldFindListOfAllBookingsWithStatePAST() {
-        List<BookingDto> bookingsP = bookingService.getAllBookerItemsBooking(2L, "PAST", 0, 10);
+        List<BookingDto> bookingsP = bookingService.getAllBookerItemsBooking(user1, "PAST", 0, 10);
         assertEquals(0, bookingsP.size());
     }
 
@@ -213,10 +228,9 @@ public class BookingServiceTest {
         LocalDateTime newStart = LocalDateTime.now();
         LocalDateTime newEnd = newStart.minusDays(1);
         BookingRequest newBookingRequest = new BookingRequest(item.getId(), newStart, newEnd);
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
         when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
         UnavailableException ex = assertThrows(UnavailableException.class,
-                () -> bookingService.addBooking(user.getId(), newBookingRequest));
+                () -> bookingService.addBooking(user, newBookingRequest));
         assertEquals("Booking is unavailable", ex.getMessage());
     }
 
@@ -224,16 +238,32 @@ public class BookingServiceTest {
     void shouldReturnBookingWithApprovedStatus() {
         booking.setStatus(BookingStatus.WAITING);
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(booking)).thenReturn(booking);
-        BookingDto actualBooking = bookingService.updateBookingStatus(user1.getId(), booking.getId(), true);
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
+        BookingDto actualBooking = bookingService.updateBookingStatus(user1, booking.getId(), true);
         assertEquals(booking.getStatus(), actualBooking.getStatus());
+        verify(bookingTimeline, times(1)).approved(booking);
+    }
+
+    @Test
+    void shouldReturnRejectedBookingToAvailabilityIndexWhenApproved() {
+        booking.setStatus(BookingStatus.WAITING);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        bookingService.updateBookingStatus(user1, booking.getId(), false);
+        assertEquals(BookingStatus.REJECTED, booking.getStatus());
+        bookingService.updateBookingStatus(user1, booking.getId(), true);
+        assertEquals(BookingStatus.APPROVED, booking.getStatus());
+        InOrder inOrder = inOrder(itemAvailabilityIndex);
+        inOrder.verify(itemAvailabilityIndex).remove(booking);
+        inOrder.verify(itemAvailabilityIndex).put(booking);
     }
 
     @Test
     void shouldThrowExceptionWhileStatusIsAlreadyApproved() {
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
         UnavailableException ex = assertThrows(UnavailableException.class,
-                () -> bookingService.updateBookingStatus(user1.getId(), booking.getId(), true));
+                () -> bookingService.updateBookingStatus(user1, booking.getId(), true));
         assertEquals("Booking is already confirmed", ex.getMessage());
     }
 
@@ -268,4 +298,126 @@ public class BookingServiceTest {
         BookingForItem bfi = new BookingForItem(1L, 1L);
         assertNotNull(bfi.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldFindListOfALLBookingsAfterCursor() {
+        KeysetCursor cursor = new KeysetCursor(futureBooking.getStart(), futureBooking.getId());
+        when(bookingRepository.findAllByBookerIdBeforeCursor(anyLong(), any(), anyLong(), any()))
+                .thenReturn(List.of(booking, pastBooking));
+        List<BookingDto> bookings = bookingService.getAllBookerBookings(user, "ALL", cursor, 10);
+        assertEquals(2, bookings.size());
+    }
+
+    @Test
+    void shouldFindListOfAllBookingsWithStateWAITINGAfterCursor() {
+        KeysetCursor cursor = new KeysetCursor(booking.getStart(), booking.getId());
+        List<BookingDto> bookingsW = bookingService.getAllBookerItemsBooking(user1, "WAITING", cursor, 10);
+        assertEquals(0, bookingsW.size());
+    }
+
+    @Test
+    void shouldDecodeEncodedCursor() {
+        KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor(booking.getStart(), booking.getId()).encode());
+        assertEquals(booking.getStart(), cursor.getPosition());
+        assertEquals(booking.getId(), cursor.getId());
+    }
+
+    @Test
+    void shouldAddBookingLoadingItemAndBookerOnce() {
+        LocalDateTime newStart = LocalDateTime.now().plusDays(1);
+        BookingRequest newBookingRequest = new BookingRequest(item.getId(), newStart, newStart.plusDays(1));
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        BookingDto bookingDto = bookingService.addBooking(user, newBookingRequest);
+        assertEquals(BookingStatus.WAITING, bookingDto.getStatus());
+        assertEquals(user, bookingDto.getBooker());
+        assertEquals(item, bookingDto.getItem());
+        verify(itemRepository, times(1)).findById(item.getId());
+        verify(bookingRepository, times(1)).existsOverlapping(item.getId(), newStart, newStart.plusDays(1),
+                BookingStatus.APPROVED);
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+        verifyNoMoreInteractions(itemRepository, bookingRepository);
+    }
+
+    @Test
+    void shouldThrowExceptionWhileApprovingOverlappingBooking() {
+        booking.setStatus(BookingStatus.WAITING);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlapping(item.getId(), booking.getStart(), booking.getEnd(),
+                BookingStatus.APPROVED)).thenReturn(true);
+        UnavailableException ex = assertThrows(UnavailableException.class,
+                () -> bookingService.updateBookingStatus(user1, booking.getId(), true));
+        assertEquals("Booking overlaps with an approved booking", ex.getMessage());
+        assertEquals(BookingStatus.WAITING, booking.getStatus());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenExclusionConstraintRejectsConcurrentApproval() {
+        booking.setStatus(BookingStatus.WAITING);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.saveAndFlush(booking)).thenThrow(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+        UnavailableException ex = assertThrows(UnavailableException.class,
+                () -> bookingService.updateBookingStatus(user1, booking.getId(), true));
+        assertEquals("Booking overlaps with an approved booking", ex.getMessage());
+        verify(bookingFeed, never()).publish(any(Booking.class));
+    }
+
+    @Test
+    void shouldRethrowOtherIntegrityViolationsOnApproval() {
+        booking.setStatus(BookingStatus.WAITING);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.saveAndFlush(booking)).thenThrow(new DataIntegrityViolationException("fk",
+                new SQLException("foreign key violation", "23503")));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> bookingService.updateBookingStatus(user1, booking.getId(), true));
+    }
+
+    @Test
+    void shouldExportOwnerBookingsFromStream() {
+        List<BookingDto> exported = new ArrayList<>();
+        when(bookingRepository.streamAllByOwnerId(user1.getId())).thenReturn(Stream.of(booking, futureBooking));
+        bookingService.exportBookerItemsBookings(user1, exported::add);
+        assertEquals(List.of(BookingMapper.toBookingDto(booking), BookingMapper.toBookingDto(futureBooking)),
+                exported);
+    }
+
+    @Test
+    void shouldReportNullBatchEntryAsInvalid() {
+        LocalDateTime start = futureBooking.getStart().plusDays(3);
+        List<BookingRequest> bookingRequests = Arrays.asList(null, new BookingRequest(item.getId(), start,
+                start.plusDays(1)));
+        when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        List<BookingBatchResult> results = bookingService.addBookings(user, bookingRequests);
+        assertEquals(List.of(BookingBatchStatus.INVALID, BookingBatchStatus.CREATED),
+                results.stream().map(BookingBatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals(0, results.get(0).getIndex());
+        assertEquals("Booking is required", results.get(0).getError());
+    }
+
+    @Test
+    void shouldReportPerElementStatusForBookingBatch() {
+        LocalDateTime start = futureBooking.getStart().plusDays(3);
+        List<BookingRequest> bookingRequests = List.of(
+                new BookingRequest(item.getId(), start, start.plusDays(1)),
+                new BookingRequest(item.getId(), start.plusHours(1), start.plusDays(2)),
+                new BookingRequest(99L, start, start.plusDays(1)),
+                new BookingRequest(item.getId(), futureBooking.getStart(), futureBooking.getStart().plusMinutes(30)),
+                new BookingRequest(item.getId(), null, start));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        when(bookingRepository.findOverlappingSlots(any(), any(), any(), eq(BookingStatus.APPROVED)))
+                .thenReturn(List.of(BookingSlot.of(futureBooking)));
+        List<BookingBatchResult> results = bookingService.addBookings(user, bookingRequests);
+        assertEquals(List.of(BookingBatchStatus.CREATED, BookingBatchStatus.OVERLAPPING, BookingBatchStatus.NOT_FOUND,
+                        BookingBatchStatus.OVERLAPPING, BookingBatchStatus.INVALID),
+                results.stream().map(BookingBatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals(BookingStatus.WAITING, results.get(0).getBooking().getStatus());
+        assertEquals("Booking overlaps with booking 0 of the batch", results.get(1).getError());
+        verify(itemRepository, times(1)).findAllById(any());
+        verify(bookingRepository, times(1)).saveAll(List.of(new Booking(null, start, start.plusDays(1), item, user,
+                BookingStatus.WAITING)));
+        verify(bookingFeed, times(1)).publish(any(Booking.class));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class BookingTimelineTest {
+    @Mock
+    BookingRepository bookingRepository;
+
+    BookingTimeline timeline;
+
+    LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        timeline = new BookingTimeline(bookingRepository, true);
+        List<BookingSlot> slots = List.of(
+                new BookingSlot(1L, 10L, 1L, now.minusDays(3), now.minusDays(2)),
+                new BookingSlot(2L, 11L, 1L, now.minusDays(1), now.minusHours(1)),
+                new BookingSlot(3L, 12L, 1L, now.plusDays(1), now.plusDays(2)),
+                new BookingSlot(4L, 13L, 1L, now.plusDays(3), now.plusDays(4)));
+        when(bookingRepository.findAllSlotsByStatus(eq(BookingStatus.APPROVED), any()))
+                .thenReturn(new SliceImpl<>(slots));
+        timeline.rebuild();
+    }
+
+    @Test
+    void shouldReturnLatestPastAndEarliestFutureBookings() {
+        assertEquals(new BookingForItem(2L, 11L, 1L), timeline.getLastBooking(1L, now));
+        assertEquals(new BookingForItem(3L, 12L, 1L), timeline.getNextBooking(1L, now));
+    }
+
+    @Test
+    void shouldReturnNothingForItemWithoutApprovedBookings() {
+        assertNull(timeline.getLastBooking(2L, now));
+        assertNull(timeline.getNextBooking(2L, now));
+    }
+
+    @Test
+    void shouldAddApprovedBookings() {
+        Item item = new Item(1L, "item", "desc", true, 1L, null);
+        User booker = User.builder().id(14L).name("John").email("john.doe@mail.com").build();
+        timeline.approved(new Booking(5L, now.plusHours(2), now.plusHours(3), item, booker, BookingStatus.APPROVED));
+        assertEquals(new BookingForItem(5L, 14L, 1L), timeline.getNextBooking(1L, now));
+        assertEquals(new BookingForItem(2L, 11L, 1L), timeline.getLastBooking(1L, now));
+    }
+
+    @Test
+    void shouldKeepBookingsSharingStart() {
+        Item item = new Item(1L, "item", "desc", true, 1L, null);
+        User booker = User.builder().id(14L).name("John").email("john.doe@mail.com").build();
+        timeline.approved(new Booking(6L, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.APPROVED));
+        timeline.approved(new Booking(5L, now.minusDays(1), now.minusHours(2), item, booker, BookingStatus.APPROVED));
+        assertEquals(new BookingForItem(3L, 12L, 1L), timeline.getNextBooking(1L, now));
+        assertEquals(new BookingForItem(3L, 12L, 1L), timeline.getLastBooking(1L, now.plusDays(1).plusHours(1)));
+        assertEquals(new BookingForItem(2L, 11L, 1L), timeline.getLastBooking(1L, now));
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.dataset;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Slf4j
+@RequiredArgsConstructor
+public class DatasetSeeder {
+    public static final String[] WORDS = {"drill", "saw", "hammer", "ladder", "tent", "bike", "kayak", "projector"};
+    static final String[] STATUSES = {"APPROVED", "WAITING", "REJECTED", "APPROVED"};
+    static final int BATCH = 10_000;
+    static final int SEQUENCE_ALLOCATION = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void seed(int users, int itemsPerUser, int bookingsPerItem) {
+        long begin = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long items = (long) users * itemsPerUser;
+        insert("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", users, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, "user" + id);
+            statement.setString(3, "user" + id + "@mail.com");
+        });
+        insert("INSERT INTO requests (id, description, user_id, created) VALUES (?, ?, ?, ?)", users,
+                (statement, id) -> {
+                    statement.setLong(1, id);
+                    statement.setString(2, "Need a " + word(id));
+                    statement.setLong(3, id);
+                    statement.setTimestamp(4, Timestamp.valueOf(now.minusMinutes(id)));
+                });
+        insert("INSERT INTO items (id, owner_id, name, description, available, request_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", items, (statement, id) -> {
+            long owner = ownerOf(id, itemsPerUser);
+            statement.setLong(1, id);
+            statement.setLong(2, owner);
+            statement.setString(3, word(id) + " " + id);
+            statement.setString(4, "Cordless " + word(id + 3) + " accessory");
+            statement.setBoolean(5, id % 10 != 0);
+            if (id % 5 == 0) {
+                statement.setLong(6, owner % users + 1);
+            } else {
+                statement.setNull(6, Types.BIGINT);
+            }
+        });
+        insert("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", items * bookingsPerItem, (statement, id) -> {
+            long item = (id - 1) / bookingsPerItem + 1;
+            long slot = (id - 1) % bookingsPerItem;
+            LocalDateTime start = now.plusDays((slot - bookingsPerItem / 2) * 2);
+            statement.setLong(1, id);
+            statement.setTimestamp(2, Timestamp.valueOf(start));
+            statement.setTimestamp(3, Timestamp.valueOf(start.plusDays(1)));
+            statement.setLong(4, item);
+            statement.setLong(5, ownerOf(item, itemsPerUser) % users + 1);
+            statement.setString(6, STATUSES[(int) (slot % STATUSES.length)]);
+        });
+        insert("INSERT INTO comments (id, text, item_id, author_id, created) VALUES (?, ?, ?, ?, ?)", items,
+                (statement, id) -> {
+                    statement.setLong(1, id);
+                    statement.setString(2, "Great " + word(id));
+                    statement.setLong(3, id);
+                    statement.setLong(4, ownerOf(id, itemsPerUser) % users + 1);
+                    statement.setTimestamp(5, Timestamp.valueOf(now));
+                });
+        restartIdentity("users", users);
+        restartIdentity("requests", users);
+        restartSequence("items_seq", items);
+        restartSequence("bookings_seq", items * bookingsPerItem);
+        restartIdentity("comments", items);
+        log.info("Seeded {} users, {} items, {} bookings in {} ms", users, items, items * bookingsPerItem,
+                (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    private void insert(String sql, long count, RowWriter writer) {
+        for (long from = 0; from < count; from += BATCH) {
+            long offset = from;
+            int size = (int) Math.min(BATCH, count - from);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    writer.write(statement, offset + i + 1);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    private void restartIdentity(String table, long maxId) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId + 1));
+    }
+
+    private void restartSequence(String sequence, long maxId) {
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + SEQUENCE_ALLOCATION));
+    }
+
+    private static long ownerOf(long itemId, int itemsPerUser) {
+        return (itemId - 1) / itemsPerUser + 1;
+    }
+
+    private static String word(long id) {
+        return WORDS[(int) (id % WORDS.length)];
+    }
+
+    @FunctionalInterface
+    interface RowWriter {
+        void write(PreparedStatement statement, long id) throws SQLException;
+    }
+}
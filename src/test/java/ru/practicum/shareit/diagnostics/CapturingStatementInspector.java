@@ -0,0 +1,33 @@
+package ru.practicum.shareit.diagnostics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test-only inspector that keeps the SQL text next to the counts, so production never holds on to statements.
+ */
+public class CapturingStatementInspector extends SqlStatementCounter {
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "ru.practicum.shareit.diagnostics.CapturingStatementInspector";
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return super.inspect(sql);
+    }
+
+    public static void capture() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    public static List<String> release() {
+        List<String> statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.diagnostics;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class SqlStatementBudget {
+    private SqlStatementBudget() {
+    }
+
+    public static ResultMatcher atMost(int statements) {
+        return result -> {
+            String header = result.getResponse().getHeader(SqlStatementCountAdvice.HEADER);
+            assertNotNull(header, "Missing " + SqlStatementCountAdvice.HEADER + " header");
+            int executed = Integer.parseInt(header);
+            assertTrue(executed <= statements, () -> result.getRequest().getMethod() + " "
+                    + result.getRequest().getRequestURI() + " executed " + executed
+                    + " SQL statements, budget is " + statements);
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.diagnostics;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.dataset.DatasetSeeder;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.diagnostics.SqlStatementBudget.atMost;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SqlStatementBudgetTest {
+    static final int USERS = 20;
+    static final int ITEMS_PER_USER = 5;
+
+    final MockMvc mockMvc;
+    final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        new DatasetSeeder(jdbcTemplate).seed(USERS, ITEMS_PER_USER, 4);
+    }
+
+    @Test
+    void itemEndpointsShouldStayWithinStatementBudget() throws Exception {
+        mockMvc.perform(get("/items").header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(atMost(5));
+        mockMvc.perform(get("/items/{id}", 1).header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(atMost(5));
+        mockMvc.perform(get("/items/search").param("text", "drill").header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(atMost(2));
+    }
+
+    @Test
+    void bookingAndRequestEndpointsShouldStayWithinStatementBudget() throws Exception {
+        mockMvc.perform(get("/bookings").param("state", "ALL").header("X-Sharer-User-Id", 2))
+                .andExpect(status().isOk())
+                .andExpect(atMost(2));
+        mockMvc.perform(get("/bookings/owner").param("state", "WAITING").header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(atMost(2));
+        mockMvc.perform(get("/requests/all").header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(atMost(3));
+        LocalDateTime start = LocalDateTime.now().plusYears(1);
+        mockMvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", 2)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": 1, \"start\": \"" + start + "\", " +
+                                "\"end\": \"" + start.plusDays(1) + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(atMost(4));
+    }
+
+    @Test
+    void bookingBatchShouldInsertInJdbcBatches() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusYears(1);
+        StringBuilder content = new StringBuilder("[");
+        for (int i = 0; i < 40; i++) {
+            LocalDateTime bookingStart = start.plusDays(2L * i);
+            content.append(i == 0 ? "" : ",")
+                    .append("{\"itemId\": ").append(i % 4 + 1)
+                    .append(", \"start\": \"").append(bookingStart)
+                    .append("\", \"end\": \"").append(bookingStart.plusDays(1)).append("\"}");
+        }
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 2)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content.append("]").toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[39].status").value("CREATED"))
+                .andExpect(atMost(6));
+    }
+
+    @Test
+    void shouldGroupRepeatedStatementsByShape() {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        SqlStatementCounter.start();
+        counter.inspect("select * from users where id = 1");
+        counter.inspect("select * from users   where id = 2");
+        counter.inspect("select * from items where owner_id = 'x'");
+        SqlStatementCounter.Counts counts = SqlStatementCounter.stop();
+        assertEquals(3, counts.getTotal());
+        assertEquals(2, counts.getMostRepeated().getValue());
+        assertEquals("select * from users where id = ?", counts.getMostRepeated().getKey());
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.item;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingSlot;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class ItemAvailabilityIndexTest {
+    @Mock
+    BookingRepository bookingRepository;
+
+    ItemAvailabilityIndex index;
+
+    LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.of(2030, 1, 1, 12, 0);
+        index = new ItemAvailabilityIndex(bookingRepository, true);
+        List<BookingSlot> slots = List.of(
+                new BookingSlot(1L, 10L, 1L, now, now.plusDays(10)),
+                new BookingSlot(2L, 11L, 1L, now.plusDays(1), now.plusDays(2)),
+                new BookingSlot(3L, 12L, 1L, now.plusDays(20), now.plusDays(21)),
+                new BookingSlot(4L, 13L, 2L, now.plusDays(1), now.plusDays(2)));
+        when(bookingRepository.findAllSlotsByStatusIn(any(), any())).thenReturn(new SliceImpl<>(slots));
+        index.rebuild();
+    }
+
+    @Test
+    void shouldBeReadyOnlyAfterRebuild() {
+        ItemAvailabilityIndex fresh = new ItemAvailabilityIndex(bookingRepository, true);
+        assertFalse(fresh.isReady());
+        fresh.rebuild();
+        assertTrue(fresh.isReady());
+        assertTrue(index.isReady());
+        assertFalse(new ItemAvailabilityIndex(bookingRepository, false).isReady());
+    }
+
+    @Test
+    void shouldDetectOverlapWithLongBookingStartedEarlier() {
+        assertFalse(index.isAvailable(1L, now.plusDays(5), now.plusDays(6)));
+        assertFalse(index.isAvailable(1L, now.minusDays(1), now.plusHours(1)));
+    }
+
+    @Test
+    void shouldTreatAdjacentPeriodsAsAvailable() {
+        assertTrue(index.isAvailable(1L, now.plusDays(10), now.plusDays(20)));
+        assertTrue(index.isAvailable(1L, now.minusDays(1), now));
+        assertTrue(index.isAvailable(2L, now, now.plusDays(1)));
+    }
+
+    @Test
+    void shouldTreatItemsWithoutBookingsAsAvailable() {
+        assertTrue(index.isAvailable(3L, now, now.plusDays(1)));
+    }
+
+    @Test
+    void shouldUpdateOnNewAndRejectedBookings() {
+        Item item = new Item(3L, "item", "desc", true, 1L, null);
+        User booker = User.builder().id(14L).name("John").email("john.doe@mail.com").build();
+        Booking booking = new Booking(5L, now, now.plusDays(1), item, booker, BookingStatus.WAITING);
+        index.put(booking);
+        assertFalse(index.isAvailable(3L, now.plusHours(1), now.plusHours(2)));
+        index.remove(booking);
+        assertTrue(index.isAvailable(3L, now.plusHours(1), now.plusHours(2)));
+    }
+
+    @Test
+    void shouldBlockRejectedBookingAgainWhenApproved() {
+        Item item = new Item(3L, "item", "desc", true, 1L, null);
+        User booker = User.builder().id(14L).name("John").email("john.doe@mail.com").build();
+        Booking booking = new Booking(5L, now, now.plusDays(1), item, booker, BookingStatus.WAITING);
+        index.put(booking);
+        booking.setStatus(BookingStatus.REJECTED);
+        index.remove(booking);
+        assertTrue(index.isAvailable(3L, now.plusHours(1), now.plusHours(2)));
+        booking.setStatus(BookingStatus.APPROVED);
+        index.put(booking);
+        assertFalse(index.isAvailable(3L, now.plusHours(1), now.plusHours(2)));
+    }
+
+    @Test
+    void shouldKeepUpdatesCommittedDuringRebuild() {
+        Item item = new Item(3L, "item", "desc", true, 1L, null);
+        User booker = User.builder().id(14L).name("John").email("john.doe@mail.com").build();
+        Booking booking = new Booking(5L, now, now.plusDays(1), item, booker, BookingStatus.WAITING);
+        when(bookingRepository.findAllSlotsByStatusIn(any(), any())).thenAnswer(invocation -> {
+            index.put(booking);
+            return new SliceImpl<>(List.of(new BookingSlot(1L, 10L, 1L, now, now.plusDays(10))));
+        });
+        index.rebuild();
+        assertFalse(index.isAvailable(3L, now.plusHours(1), now.plusHours(2)));
+        assertFalse(index.isAvailable(1L, now.plusDays(5), now.plusDays(6)));
+        assertTrue(index.isAvailable(2L, now.plusDays(1), now.plusDays(2)));
+    }
+}
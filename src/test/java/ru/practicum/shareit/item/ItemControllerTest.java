@@ -14,7 +14,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.comment.CommentDto;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -25,7 +27,7 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -48,6 +50,8 @@ class ItemControllerTest {
     CommentDto commentDto;
     @MockBean
     private ItemServiceImpl itemService;
+    @MockBean
+    private UserService userService;
 
     @BeforeEach
     public void setUp() {
@@ -75,7 +79,7 @@ class ItemControllerTest {
 
     @Test
     public void shouldCreateItem() throws Exception {
-        when(itemService.create(anyLong(), any()))
+        when(itemService.create(any(), any()))
                 .thenReturn(itemDto);
         mockMvc.perform(post("/items")
                         .content(mapper.writeValueAsString(itemDto))
@@ -92,7 +96,7 @@ class ItemControllerTest {
     @Test
     public void shouldUpdateItem() throws Exception {
         String json = mapper.writeValueAsString(itemDto);
-        when(itemService.update(any(), anyLong(), anyLong())).thenReturn(itemDto);
+        when(itemService.update(any(), anyLong(), any())).thenReturn(itemDto);
         itemDto.setName("updated");
         mockMvc.perform(patch("/items/{id}", 1L)
                         .header("X-Sharer-User-Id", 1L)
@@ -107,9 +111,43 @@ class ItemControllerTest {
     }
 
 
+    @Test
+    public void shouldPassResolvedSharerUserToService() throws Exception {
+        when(itemService.findItemById(any(), anyLong())).thenReturn(itemBookingModel);
+        when(userService.getUserOptional(owner.getId())).thenReturn(owner);
+        mockMvc.perform(get("/items/{id}", 1L)
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+        verify(userService, times(1)).getUserOptional(owner.getId());
+        verify(itemService, times(1)).findItemById(owner, 1L);
+    }
+
+    @Test
+    public void shouldRejectUnknownSharerUserBeforeCallingService() throws Exception {
+        when(userService.getUserOptional(99L)).thenThrow(new NotFoundException("Can't find user id:99"));
+        mockMvc.perform(get("/items/{id}", 1L)
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(itemService);
+    }
+
+    @Test
+    public void shouldGetItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, Month.JANUARY, 1, 10, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemService.getAvailability(1L, from, to)).thenReturn(new ItemAvailability(1L, from, to, true));
+        mockMvc.perform(get("/items/{id}/availability", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-02T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1L), Long.class))
+                .andExpect(jsonPath("$.available", is(true)));
+    }
+
     @Test
     public void shouldFindItemById() throws Exception {
-        when(itemService.findItemById(anyLong(), anyLong())).thenReturn(itemBookingModel);
+        when(itemService.findItemById(any(), anyLong())).thenReturn(itemBookingModel);
         mockMvc.perform(get("/items/{id}", 1L)
                         .header("X-Sharer-User-Id", 1L))
                 .andExpect(status().isOk())
@@ -122,7 +160,7 @@ class ItemControllerTest {
 
     @Test
     public void shouldFindAllItems() throws Exception {
-        when(itemService.findAllItemsByOwner(anyLong(), anyInt(), anyInt()))
+        when(itemService.findAllItemsByOwner(any(), anyInt(), anyInt()))
                 .thenReturn(List.of(itemBookingModel));
         mockMvc.perform(get("/items")
                         .header("X-Sharer-User-Id", 1L))
@@ -150,7 +188,7 @@ class ItemControllerTest {
 
     @Test
     public void shouldAddCommentToItem() throws Exception {
-        when(itemService.createComment(anyLong(), anyLong(), any())).thenReturn(commentDto);
+        when(itemService.createComment(any(), anyLong(), any())).thenReturn(commentDto);
         mockMvc.perform(post("/items/{itemId}/comment", 1L)
                         .header("X-Sharer-User-Id", booker.getId())
                         .content(mapper.writeValueAsString(commentDto))
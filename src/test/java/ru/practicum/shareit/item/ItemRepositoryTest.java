@@ -51,4 +51,27 @@ class ItemRepositoryTest {
         List<Item> itemList = itemRepository.findItemsByTextIgnoreCase("stu", PageRequest.of(0, 20));
         assertEquals(itemList.size(), 1);
     }
+
+    @Test
+    void shouldSearchOrderingNameMatchesBeforeDescriptionMatches() {
+        userRepository.save(user);
+        Item byDescription = itemRepository.save(Item.builder()
+                .name("Drill")
+                .description("stuff for walls")
+                .available(true)
+                .ownerId(1L)
+                .build());
+        Item byNameInfix = itemRepository.save(Item.builder()
+                .name("Hot stuff")
+                .description("desc")
+                .available(true)
+                .ownerId(1L)
+                .build());
+        itemRepository.save(item);
+        List<Item> itemList = itemRepository.findItemsByTextIgnoreCase("stuff", PageRequest.of(0, 20));
+        assertEquals(3, itemList.size());
+        assertEquals(item.getId(), itemList.get(0).getId());
+        assertEquals(byNameInfix.getId(), itemList.get(1).getId());
+        assertEquals(byDescription.getId(), itemList.get(2).getId());
+    }
 }
\ No newline at end of file
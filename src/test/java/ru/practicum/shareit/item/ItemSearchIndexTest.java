@@ -0,0 +1,97 @@
+package ru.practicum.shareit.item;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class ItemSearchIndexTest {
+    @Mock
+    ItemRepository itemRepository;
+
+    ItemSearchIndex index;
+
+    Item drill;
+
+    Item hammer;
+
+    @BeforeEach
+    void setUp() {
+        drill = new Item(1L, "Drill", "Cordless drill with stuff", true, 1L, null);
+        hammer = new Item(2L, "Stuffed hammer", "Heavy", true, 1L, null);
+        index = new ItemSearchIndex(itemRepository, true);
+        when(itemRepository.findAllByAvailableTrue(any())).thenReturn(new SliceImpl<>(List.of(drill, hammer)));
+        index.rebuild();
+    }
+
+    @Test
+    void shouldFindItemsByNameAndDescriptionOrderedByRelevance() {
+        assertEquals(List.of(2L, 1L), index.search("STUFF", 0, 20));
+        assertEquals(List.of(1L), index.search("cordless", 0, 20));
+        assertEquals(List.of(1L), index.search("stuff", 1, 20));
+    }
+
+    @Test
+    void shouldFindItemsByShortText() {
+        assertEquals(List.of(1L, 2L), index.search("d", 0, 20));
+    }
+
+    @Test
+    void shouldNotReturnTrigramFalsePositives() {
+        assertTrue(index.search("drillhammer", 0, 20).isEmpty());
+        assertTrue(index.search("ill with stuffed", 0, 20).isEmpty());
+    }
+
+    @Test
+    void shouldUpdateIndexWhenAvailabilityChanges() {
+        hammer.setAvailable(false);
+        index.put(hammer);
+        assertEquals(List.of(1L), index.search("stuff", 0, 20));
+        hammer.setAvailable(true);
+        hammer.setName("Anvil");
+        index.put(hammer);
+        assertEquals(List.of(2L), index.search("anvil", 0, 20));
+        assertTrue(index.search("hammer", 0, 20).isEmpty());
+    }
+
+    @Test
+    void shouldReportMemoryFootprint() {
+        ItemSearchIndexStats stats = index.getStats();
+        assertTrue(stats.isEnabled());
+        assertTrue(stats.isReady());
+        assertEquals(2, stats.getItems());
+        assertTrue(stats.getTerms() > 0);
+        assertTrue(stats.getPostings() >= stats.getTerms());
+        assertTrue(stats.getEstimatedBytes() > 0);
+    }
+
+    @Test
+    void shouldRebuildThroughActuatorEndpoint() {
+        ItemSearchIndexEndpoint endpoint = new ItemSearchIndexEndpoint(index);
+        when(itemRepository.findAllByAvailableTrue(any())).thenReturn(new SliceImpl<>(List.of(drill)));
+        ItemSearchIndexStats stats = endpoint.rebuild();
+        assertEquals(1, stats.getItems());
+        assertEquals(stats, endpoint.stats());
+        assertTrue(index.search("hammer", 0, 20).isEmpty());
+    }
+
+    @Test
+    void shouldIndexImportedItemsById() {
+        Item saw = new Item(3L, "Saw", "Japanese saw", true, 1L, null);
+        when(itemRepository.findDetachedByIdIn(List.of(3L))).thenReturn(List.of(saw));
+        index.putAllById(List.of(3L));
+        assertEquals(List.of(3L), index.search("japanese", 0, 20));
+    }
+}
@@ -1,12 +1,16 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
@@ -14,17 +18,25 @@ import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentDto;
+import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.comment.CommentRequest;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.StringReader;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @FieldDefaults(level = AccessLevel.PRIVATE)
@@ -37,6 +49,10 @@ class ItemServiceTest {
 
     final ItemService itemService;
 
+    final CommentRepository commentRepository;
+
+    final EntityManagerFactory entityManagerFactory;
+
     User user;
 
     Item item;
@@ -56,7 +72,7 @@ class ItemServiceTest {
                 .description("desc")
                 .available(true)
                 .build();
-        item = ItemMapper.toItem(itemService.create(user.getId(), itemDto));
+        item = ItemMapper.toItem(itemService.create(user, itemDto));
         item.setOwnerId(1L);
         itemRepository.save(item);
         itemDto = ItemMapper.toItemDto(item);
@@ -72,37 +88,80 @@ class ItemServiceTest {
     @Test
     void shouldFindItem() {
         itemRepository.save(item);
-        ItemBookingModel bookingModel = itemService.findItemById(1L, 1L);
+        ItemBookingModel bookingModel = itemService.findItemById(user, 1L);
         assertEquals(1L, bookingModel.getId());
     }
 
     @Test
     void shouldFindAllItemsByOwner() {
         itemRepository.save(item);
-        List<ItemBookingModel> list = itemService.findAllItemsByOwner(user.getId(), 0, 20);
+        List<ItemBookingModel> list = itemService.findAllItemsByOwner(user, 0, 20);
         assertEquals(1, list.size());
     }
 
+    @Test
+    void shouldFindAllItemsByOwnerWithConstantQueryCount() {
+        itemService.findAllItemsByOwner(user, 0, 20);
+        long singleItemPageStatements = countStatements(() -> itemService.findAllItemsByOwner(user, 0, 20));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 10; i++) {
+            Item ownerItem = itemRepository.save(Item.builder()
+                    .name("item" + i)
+                    .description("desc")
+                    .available(true)
+                    .ownerId(user.getId())
+                    .build());
+            bookingRepository.save(new Booking(null, now.minusDays(2), now.minusDays(1), ownerItem, user,
+                    BookingStatus.APPROVED));
+            bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2), ownerItem, user,
+                    BookingStatus.APPROVED));
+            commentRepository.save(Comment.builder()
+                    .text("text" + i)
+                    .item(ownerItem)
+                    .author(user)
+                    .created(now)
+                    .build());
+        }
+        long fullPageStatements = countStatements(() -> itemService.findAllItemsByOwner(user, 0, 20));
+        List<ItemBookingModel> list = itemService.findAllItemsByOwner(user, 0, 20);
+        assertEquals(11, list.size());
+        assertNotNull(list.get(1).getLastBooking());
+        assertNotNull(list.get(1).getNextBooking());
+        assertEquals(1, list.get(1).getComments().size());
+        assertEquals(singleItemPageStatements, fullPageStatements);
+    }
+
+    @Test
+    void shouldCacheItemAndUserLookupsAndEvictItemOnUpdate() {
+        itemRepository.findById(item.getId());
+        userRepository.findById(user.getId());
+        assertEquals(0, countStatements(() -> {
+            itemRepository.findById(item.getId());
+            userRepository.findById(user.getId());
+        }));
+        itemService.update(ItemDto.builder().name("updated").build(), item.getId(), user);
+        assertEquals("updated", itemRepository.findById(item.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void shouldNotShareCachedEntitiesBetweenCallers() {
+        itemRepository.findById(item.getId()).orElseThrow().setName("changed by caller");
+        userRepository.findById(user.getId()).orElseThrow().setName("changed by caller");
+        assertEquals(item.getName(), itemRepository.findById(item.getId()).orElseThrow().getName());
+        assertEquals(user.getName(), userRepository.findById(user.getId()).orElseThrow().getName());
+    }
+
     @Test
     void shouldPostComment() {
         bookingRepository.save(new Booking(1L,
                 LocalDateTime.now().minusDays(2),
                 LocalDateTime.now().minusDays(1), item, user, BookingStatus.APPROVED));
         CommentRequest request = new CommentRequest("text");
-        itemService.createComment(user.getId(), item.getId(), request);
-        CommentDto commentDto = itemService.createComment(user.getId(), item.getId(), request);
+        itemService.createComment(user, item.getId(), request);
+        CommentDto commentDto = itemService.createComment(user, item.getId(), request);
         assertEquals(commentDto.getText(), request.getText());
     }
 
-    @Test
-    @Transactional
-    void shouldThrowExceptionCreatingItemIfUserIdIsWrong() {
-        NotFoundException exception = assertThrows(
-                NotFoundException.class,
-                () -> itemService.create(99L, itemDto));
-        assertEquals("Can't find user id:99", exception.getMessage());
-    }
-
     @Test
     @Transactional
     void shouldUpdate() {
@@ -113,7 +172,7 @@ class ItemServiceTest {
                 .description("updated")
                 .available(true)
                 .build();
-        ItemDto item1 = itemService.update(dto1, 1L, 1L);
+        ItemDto item1 = itemService.update(dto1, 1L, user);
         assertNotNull(item1);
         assertEquals(item1.getName(), dto1.getName());
         assertEquals(item1.getDescription(), dto1.getDescription());
@@ -132,6 +191,29 @@ class ItemServiceTest {
         assertEquals(itemList.size(), 2);
     }
 
+    @Test
+    void shouldFindAvailableItemsSkippingBookedOnes() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Item bookedItem = itemRepository.save(Item.builder()
+                .name("drill")
+                .description("desc")
+                .available(true)
+                .ownerId(user.getId())
+                .build());
+        bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2), bookedItem, user,
+                BookingStatus.WAITING));
+        List<ItemDto> available = itemService.findAvailableItems(user, now.plusDays(1).plusHours(1),
+                now.plusDays(3));
+        assertEquals(1, available.size());
+        assertEquals(item.getId(), available.get(0).getId());
+        assertFalse(itemService.getAvailability(bookedItem.getId(), now, now.plusDays(3))
+                .isAvailable());
+        assertTrue(itemService.getAvailability(bookedItem.getId(), now.plusDays(2), now.plusDays(3))
+                .isAvailable());
+        assertThrows(ValidationException.class,
+                () -> itemService.getAvailability(bookedItem.getId(), now.plusDays(3), now));
+    }
+
     @Test
     void shouldNotSearchWithEmptyText() {
         List<ItemDto> itemList = itemService.search("", 0, 20);
@@ -146,7 +228,7 @@ class ItemServiceTest {
         CommentRequest request = new CommentRequest("text");
         ValidationException exception = assertThrows(
                 ValidationException.class,
-                () -> itemService.createComment(user.getId(), item.getId(), request));
+                () -> itemService.createComment(user, item.getId(), request));
         assertEquals("Can't find bookings", exception.getMessage());
     }
 
@@ -156,10 +238,10 @@ class ItemServiceTest {
                 LocalDateTime.now().minusDays(2),
                 LocalDateTime.now().minusDays(1), item, user, BookingStatus.APPROVED));
         CommentRequest request = new CommentRequest("text");
-        itemService.createComment(user.getId(), item.getId(), request);
+        itemService.createComment(user, item.getId(), request);
         ValidationException exception = assertThrows(
                 ValidationException.class,
-                () -> itemService.createComment(99L, item.getId(), request));
+                () -> itemService.createComment(User.builder().id(99L).build(), item.getId(), request));
         assertEquals("Can't find bookings", exception.getMessage());
     }
 
@@ -169,45 +251,105 @@ class ItemServiceTest {
                 LocalDateTime.now().minusDays(2),
                 LocalDateTime.now().minusDays(1), item, user, BookingStatus.APPROVED));
         CommentRequest request = new CommentRequest("text");
-        itemService.createComment(user.getId(), item.getId(), request);
+        itemService.createComment(user, item.getId(), request);
         ValidationException exception = assertThrows(
                 ValidationException.class,
-                () -> itemService.createComment(user.getId(), 99L, request));
+                () -> itemService.createComment(user, 99L, request));
         assertEquals("Can't find bookings", exception.getMessage());
     }
 
     @Test
     @Transactional
-    void shouldThrowExceptionAndNotUpdateIfUserNotFound() {
+    void shouldThrowExceptionAndNotUpdateIfItemNotFound() {
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
-                () -> itemService.update(itemDto, 1L, 99L));
-        assertEquals("Can't find user id:99", exception.getMessage());
+                () -> itemService.update(itemDto, 99L, user));
+        assertEquals("Can't find item id:99", exception.getMessage());
     }
 
     @Test
-    @Transactional
-    void shouldThrowExceptionAndNotUpdateIfItemNotFound() {
+    void shouldThrowExceptionFindingItemByWrongItemId() {
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
-                () -> itemService.update(itemDto, 99L, 1L));
+                () -> itemService.findItemById(user, 99L));
         assertEquals("Can't find item id:99", exception.getMessage());
     }
 
     @Test
-    void shouldThrowExceptionFindingItemByWrongUserId() {
-        NotFoundException exception = assertThrows(
-                NotFoundException.class,
-                () -> itemService.findItemById(99L, 1L));
-        assertEquals("Can't find user id:99", exception.getMessage());
+    void shouldEvictCachedItemOnEveryRepositoryWrite() {
+        Long id = item.getId();
+        itemRepository.findById(id);
+        item.setName("saved in batch");
+        itemRepository.saveAll(List.of(item));
+        assertEquals("saved in batch", itemRepository.findById(id).orElseThrow().getName());
+        item.setName("saved and flushed");
+        itemRepository.saveAndFlush(item);
+        assertEquals("saved and flushed", itemRepository.findById(id).orElseThrow().getName());
+        itemRepository.deleteById(id);
+        assertTrue(itemRepository.findById(id).isEmpty());
+    }
 
+    @Test
+    void shouldCreateItemBatchInJdbcBatches() {
+        List<ItemDto> itemDtos = IntStream.range(0, 20)
+                .mapToObj(i -> ItemDto.builder()
+                        .id(999L)
+                        .name("drill" + i)
+                        .description("desc")
+                        .available(true)
+                        .build())
+                .collect(Collectors.toList());
+        long statements = countStatements(() -> itemService.createAll(user, itemDtos));
+        assertTrue(statements <= 3, "Batch of 20 items took " + statements + " statements");
+        assertEquals(21, itemRepository.findAllByOwnerIdOrderById(user.getId()).size());
     }
 
     @Test
-    void shouldThrowExceptionFindingItemByWrongItemId() {
-        NotFoundException exception = assertThrows(
-                NotFoundException.class,
-                () -> itemService.findItemById(1L, 99L));
-        assertEquals("Can't find item id:99", exception.getMessage());
+    void shouldImportItemsFromCsvAndNdjsonAtomically() {
+        String csv = "name,description,available\n" +
+                "drill,\"Cordless, 18V\",true\n" +
+                "\n" +
+                "saw,\"Hand \"\"Japan\"\" saw\",false\n";
+        assertEquals(2, itemService.importItems(user, reader(csv, ItemImportReader.CSV)));
+        List<Item> items = itemRepository.findAllByOwnerIdOrderById(user.getId());
+        assertEquals(3, items.size());
+        assertEquals("Cordless, 18V", items.get(1).getDescription());
+        assertEquals("Hand \"Japan\" saw", items.get(2).getDescription());
+        assertFalse(items.get(2).getAvailable());
+
+        String ndjson = "{\"name\": \"tent\", \"description\": \"Two person tent\", \"available\": true}\n" +
+                "{\"name\": \"\", \"description\": \"desc\", \"available\": true}\n";
+        ValidationException ex = assertThrows(ValidationException.class,
+                () -> itemService.importItems(user, reader(ndjson, ItemImportReader.NDJSON)));
+        assertEquals("Line 2: name, description and available are required", ex.getMessage());
+        assertEquals(3, itemRepository.findAllByOwnerIdOrderById(user.getId()).size());
+
+        String invalidCsv = "name,description,available\n" +
+                "\n" +
+                "drill,,true\n";
+        ex = assertThrows(ValidationException.class,
+                () -> itemService.importItems(user, reader(invalidCsv, ItemImportReader.CSV)));
+        assertEquals("Line 3: name, description and available are required", ex.getMessage());
+
+        String failingAfterFlush = "name,description,available\n" +
+                "drill,desc,true\n".repeat(ItemServiceImpl.IMPORT_BATCH + 1) +
+                "saw,desc,yes\n";
+        ex = assertThrows(ValidationException.class,
+                () -> itemService.importItems(user, reader(failingAfterFlush, ItemImportReader.CSV)));
+        assertEquals("Line " + (ItemServiceImpl.IMPORT_BATCH + 3) + ": available must be true or false, got yes",
+                ex.getMessage());
+        assertEquals(3, itemRepository.findAllByOwnerIdOrderById(user.getId()).size());
+    }
+
+    private static ItemImportReader reader(String content, String contentType) {
+        return new ItemImportReader(new BufferedReader(new StringReader(content)),
+                MediaType.parseMediaType(contentType), new ObjectMapper());
+    }
+
+    private long countStatements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
     }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.experimental.FieldDefaults;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingTimeline;
+import ru.practicum.shareit.dataset.DatasetSeeder;
+import ru.practicum.shareit.item.ItemAvailabilityIndex;
+import ru.practicum.shareit.item.ItemSearchIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class HttpLoadTest {
+    static final int USERS = Integer.getInteger("loadtest.users", 10_000);
+    static final int ITEMS_PER_USER = Integer.getInteger("loadtest.itemsPerUser", 5);
+    static final int BOOKINGS_PER_ITEM = Integer.getInteger("loadtest.bookingsPerItem", 8);
+    static final int THREADS = Integer.getInteger("loadtest.threads", 16);
+    static final int SECONDS = Integer.getInteger("loadtest.seconds", 30);
+    static final boolean CONCURRENCY_LIMIT = Boolean.getBoolean("shareit.web.concurrency-limit.enabled");
+    static final String OUTPUT = System.getProperty("loadtest.output",
+            "target/load-test/result-" + (CONCURRENCY_LIMIT ? "limited" : "unlimited") + ".json");
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    BookingTimeline bookingTimeline;
+
+    @Autowired
+    ItemAvailabilityIndex itemAvailabilityIndex;
+
+    final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void shouldServeRealisticMixUnderLoad() throws Exception {
+        new DatasetSeeder(jdbcTemplate).seed(USERS, ITEMS_PER_USER, BOOKINGS_PER_ITEM);
+        if (itemSearchIndex.isEnabled()) {
+            itemSearchIndex.rebuild();
+        }
+        if (bookingTimeline.isEnabled()) {
+            bookingTimeline.rebuild();
+        }
+        if (itemAvailabilityIndex.isEnabled()) {
+            itemAvailabilityIndex.rebuild();
+        }
+        List<Endpoint> mix = List.of(
+                new Endpoint("bookings", 25, userId -> "/bookings?state=ALL&from=0&size=20"),
+                new Endpoint("bookings_owner", 20, userId -> "/bookings/owner?state=FUTURE&from=0&size=20"),
+                new Endpoint("items", 25, userId -> "/items?from=0&size=20"),
+                new Endpoint("items_search", 20, userId -> "/items/search?from=0&size=20&text="
+                        + DatasetSeeder.WORDS[(int) (userId % DatasetSeeder.WORDS.length)]),
+                new Endpoint("requests_all", 10, userId -> "/requests/all?from=0&size=20"));
+        int totalWeight = mix.stream().mapToInt(Endpoint::getWeight).sum();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Map<String, Recorder>>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> drive(mix, totalWeight, deadline)));
+        }
+        Map<String, Recorder> recorders = new TreeMap<>();
+        for (Future<Map<String, Recorder>> future : futures) {
+            future.get().forEach((name, recorder) -> recorders.merge(name, recorder, Recorder::merge));
+        }
+        executor.shutdown();
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        long errors = 0;
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            Map<String, Object> stats = entry.getValue().toStats(SECONDS);
+            stats.put("endpoint", entry.getKey());
+            endpoints.add(stats);
+            errors += entry.getValue().errors;
+            log.info("{}: {}", entry.getKey(), stats);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", LocalDateTime.now().toString());
+        report.put("users", USERS);
+        report.put("items", (long) USERS * ITEMS_PER_USER);
+        report.put("bookings", (long) USERS * ITEMS_PER_USER * BOOKINGS_PER_ITEM);
+        report.put("concurrencyLimit", CONCURRENCY_LIMIT);
+        report.put("threads", THREADS);
+        report.put("seconds", SECONDS);
+        report.put("endpoints", endpoints);
+        writeReport(report);
+        assertEquals(0, errors);
+    }
+
+    private Map<String, Recorder> drive(List<Endpoint> mix, int totalWeight, long deadline) throws Exception {
+        Map<String, Recorder> recorders = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Endpoint endpoint = pick(mix, random.nextInt(totalWeight));
+            long userId = random.nextLong(1, USERS + 1L);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                            + endpoint.getPath().apply(userId)))
+                    .header("X-Sharer-User-Id", String.valueOf(userId))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long begin = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            recorders.computeIfAbsent(endpoint.getName(), name -> new Recorder())
+                    .record(System.nanoTime() - begin, response.statusCode() != 200);
+        }
+        return recorders;
+    }
+
+    private static Endpoint pick(List<Endpoint> mix, int ticket) {
+        for (Endpoint endpoint : mix) {
+            ticket -= endpoint.getWeight();
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private static void writeReport(Map<String, Object> report) throws IOException {
+        File file = new File(OUTPUT);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        log.info("Load test report written to {}", file.getAbsolutePath());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Endpoint {
+        final String name;
+        final int weight;
+        final LongFunction<String> path;
+    }
+
+    private static class Recorder {
+        long[] latencies = new long[1024];
+        int size;
+        long errors;
+
+        void record(long nanos, boolean error) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        Recorder merge(Recorder other) {
+            for (int i = 0; i < other.size; i++) {
+                record(other.latencies[i], false);
+            }
+            errors += other.errors;
+            return this;
+        }
+
+        Map<String, Object> toStats(int seconds) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", size);
+            stats.put("errors", errors);
+            stats.put("throughputPerSecond", (double) size / seconds);
+            stats.put("p50Millis", percentile(sorted, 0.50));
+            stats.put("p99Millis", percentile(sorted, 0.99));
+            stats.put("maxMillis", size == 0 ? 0.0 : sorted[size - 1] / 1_000_000.0);
+            return stats;
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
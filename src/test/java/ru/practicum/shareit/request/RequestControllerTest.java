@@ -12,8 +12,11 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.paging.KeysetCursor;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -22,9 +25,11 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -42,6 +47,8 @@ public class RequestControllerTest {
     ItemDto item;
     @MockBean
     private ItemRequestServiceImpl service;
+    @MockBean
+    private UserService userService;
 
     @BeforeEach
     public void setUp() {
@@ -73,7 +80,7 @@ public class RequestControllerTest {
     @Test
     public void shouldAddItemRequest() throws Exception {
         String jsonItem = objectMapper.writeValueAsString(itemRequest);
-        when(service.create(anyLong(), any())).thenReturn(itemRequest);
+        when(service.create(any(), any())).thenReturn(itemRequest);
         mockMvc.perform(post("/requests")
                         .header("X-Sharer-User-Id", 1)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -86,7 +93,7 @@ public class RequestControllerTest {
 
     @Test
     public void shouldReturnItemRequestById() throws Exception {
-        when(service.getRequestId(anyLong(), anyLong())).thenReturn(itemRequest);
+        when(service.getRequestId(anyLong())).thenReturn(itemRequest);
         mockMvc.perform(get("/requests/{requestId}", 1)
                         .header("X-Sharer-User-Id", 1))
                 .andExpect(status().isOk())
@@ -104,7 +111,7 @@ public class RequestControllerTest {
 
     @Test
     public void shouldGetItemRequestWithoutRequest() throws Exception {
-        when(service.getByUserId(anyLong())).thenReturn(Collections.emptyList());
+        when(service.getByUser(any())).thenReturn(Collections.emptyList());
         mockMvc.perform(get("/requests")
                         .header("X-Sharer-User-Id", 1))
                 .andExpect(status().isOk())
@@ -113,7 +120,7 @@ public class RequestControllerTest {
 
     @Test
     public void shouldGetItemRequestWithoutPagination() throws Exception {
-        when(service.getByUserId(anyLong())).thenReturn(Collections.emptyList());
+        when(service.getByUser(any())).thenReturn(Collections.emptyList());
         mockMvc.perform(get("/requests/all")
                         .header("X-Sharer-User-Id", 1))
                 .andExpect(status().isOk())
@@ -122,10 +129,36 @@ public class RequestControllerTest {
 
     @Test
     public void shouldGetItemRequestWithPagination() throws Exception {
-        when(service.get(anyLong(), anyInt(), anyInt())).thenReturn(List.of(itemRequest));
+        when(service.get(any(), anyInt(), anyInt())).thenReturn(List.of(itemRequest));
         mockMvc.perform(get("/requests/all?from=0&size=20")
                         .header("X-Sharer-User-Id", 1))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldGetItemRequestsAfterCursorWithNextCursorHeader() throws Exception {
+        KeysetCursor cursor = new KeysetCursor(itemRequest.getCreated().plusDays(1), 5L);
+        when(service.get(any(), any(KeysetCursor.class), anyInt())).thenReturn(List.of(itemRequest));
+        mockMvc.perform(get("/requests/all")
+                        .param("after", cursor.encode())
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string(ItemRequestController.NEXT_CURSOR_HEADER,
+                        new KeysetCursor(itemRequest.getCreated(), itemRequest.getId()).encode()));
+    }
+
+    @Test
+    public void shouldRejectUnknownSharerUserBeforeCallingService() throws Exception {
+        when(userService.getUserOptional(99L)).thenThrow(new NotFoundException("Can't find user id:99"));
+        mockMvc.perform(get("/requests/{requestId}", 1L)
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(service);
+    }
+}
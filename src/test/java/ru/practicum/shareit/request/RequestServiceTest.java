@@ -7,16 +7,20 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
-import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemDto;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.paging.KeysetCursor;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,9 +31,11 @@ import static org.junit.jupiter.api.Assertions.*;
 class RequestServiceTest {
 
     final ItemRequestService service;
+    final UserService userService;
     final UserRepository userRepository;
     final ItemRepository itemRepository;
     final ItemRequestRepository requestRepository;
+    final JdbcTemplate jdbcTemplate;
     User user;
     User user1;
     Item item;
@@ -64,7 +70,7 @@ class RequestServiceTest {
         ItemDto itemRequestDto = ItemDto.builder()
                 .description("thing")
                 .build();
-        ItemRequestDto requestDto = service.create(1, itemRequestDto);
+        ItemRequestDto requestDto = service.create(user, itemRequestDto);
         assertEquals(requestDto.getDescription(), itemRequestDto.getDescription());
 
     }
@@ -83,30 +89,15 @@ class RequestServiceTest {
         ItemDto itemRequestDto = ItemDto.builder()
                 .description("thing")
                 .build();
-        service.create(1, itemRequestDto);
-        ItemRequestDto requestDto = service.getRequestId(1, 1);
+        service.create(user, itemRequestDto);
+        ItemRequestDto requestDto = service.getRequestId(1);
         assertEquals(requestDto.getDescription(), itemRequestDto.getDescription());
-        List<ItemRequestDto> request = service.get(1L, 0, 20);
+        List<ItemRequestDto> request = service.get(user, 0, 20);
         assertNotNull(request);
     }
 
     @Test
-    void shouldThrowExceptionCreatingRequestWhenUserNotFound() {
-        userRepository.save(user);
-        userRepository.save(user1);
-        itemRepository.save(item);
-        ItemDto dto = ItemDto.builder()
-                .description("thing")
-                .build();
-        NotFoundException exception = assertThrows(
-                NotFoundException.class,
-                () -> service.create(99, dto));
-        assertEquals("Can't find user id:99", exception.getMessage());
-
-    }
-
-    @Test
-    void shouldThrowExceptionGettingRequestWhenUserNotFound() {
+    void shouldGetRequest() {
         userRepository.save(user);
         userRepository.save(user1);
         itemRepository.save(item);
@@ -119,70 +110,86 @@ class RequestServiceTest {
         ItemDto itemRequestDto = ItemDto.builder()
                 .description("thing")
                 .build();
-        service.create(1, itemRequestDto);
-        NotFoundException exception = assertThrows(
-                NotFoundException.class,
-                () -> service.get(99, 1, 5));
-        assertEquals("Can't find user id:99", exception.getMessage());
+        assertEquals(itemRequestDto.getDescription(), "thing");
+        List<ItemRequestDto> itemRequestResponseDto = service.getByUser(user);
+        assertEquals(itemRequestResponseDto.size(), 1);
     }
 
     @Test
-    void shouldGetRequest() {
+    void shouldCreateRequestForUserWithIdAboveUserCountAmong100kUsers() {
         userRepository.save(user);
-        userRepository.save(user1);
-        itemRepository.save(item);
-        ItemRequest itemRequest = ItemRequest.builder()
-                .description("thing")
-                .requester(1L)
-                .created(LocalDateTime.now())
-                .build();
-        requestRepository.save(itemRequest);
-        ItemDto itemRequestDto = ItemDto.builder()
+        jdbcTemplate.update("INSERT INTO users (name, email) " +
+                "SELECT concat('user', x), concat('user', x, '@mail.com') FROM system_range(1, 100000)");
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN 2 AND 50000");
+        Long lastUserId = jdbcTemplate.queryForObject("SELECT max(id) FROM users", Long.class);
+        ItemDto dto = ItemDto.builder()
                 .description("thing")
                 .build();
-        assertEquals(itemRequestDto.getDescription(), "thing");
-        List<ItemRequestDto> itemRequestResponseDto = service.getByUserId(1);
-        assertEquals(itemRequestResponseDto.size(), 1);
+        ItemRequestDto requestDto = service.create(userService.getUserOptional(lastUserId), dto);
+        assertEquals(dto.getDescription(), requestDto.getDescription());
     }
 
     @Test
-    void shouldThrowExceptionGettingRequestByWrongUserId() {
+    void shouldAttachOnlyOwnItemsToEachRequest() {
         userRepository.save(user);
         userRepository.save(user1);
-        itemRepository.save(item);
-        ItemRequest itemRequest = ItemRequest.builder()
-                .description("thing")
-                .requester(1L)
-                .created(LocalDateTime.now())
-                .build();
-        requestRepository.save(itemRequest);
-        ItemDto itemRequestDto = ItemDto.builder()
-                .description("thing")
-                .build();
-        NotFoundException exception = assertThrows(
-                NotFoundException.class,
-                () -> service.getByUserId(99));
-        assertEquals("Can't find user id:99", exception.getMessage());
+        List<ItemRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(requestRepository.save(ItemRequest.builder()
+                    .description("thing" + i)
+                    .requester(2L)
+                    .created(LocalDateTime.now().minusMinutes(i))
+                    .build()));
+        }
+        for (ItemRequest request : requests) {
+            for (int i = 0; i < 3; i++) {
+                itemRepository.save(Item.builder()
+                        .name("item")
+                        .description("for " + request.getDescription())
+                        .available(true)
+                        .ownerId(1L)
+                        .requestId(request.getId())
+                        .build());
+            }
+        }
+        List<ItemRequestDto> result = service.get(user, 0, 20);
+        assertEquals(10, result.size());
+        for (ItemRequestDto requestDto : result) {
+            assertEquals(3, requestDto.getItems().size());
+            assertTrue(requestDto.getItems()
+                    .stream()
+                    .allMatch(itemDto -> itemDto.getRequestId().equals(requestDto.getId())));
+        }
+        assertEquals(3, service.getByUser(user1).get(0).getItems().size());
     }
 
     @Test
-    void shouldThrowExceptionGettingRequestByWrongId() {
+    void shouldPageRequestsByOffsetAndByCursor() {
         userRepository.save(user);
         userRepository.save(user1);
-        itemRepository.save(item);
-        ItemRequest itemRequest = ItemRequest.builder()
-                .description("thing")
-                .requester(1L)
-                .created(LocalDateTime.now())
-                .build();
-        requestRepository.save(itemRequest);
-        ItemDto itemRequestDto = ItemDto.builder()
-                .description("thing")
-                .build();
-        service.create(1, itemRequestDto);
-        NotFoundException exception = assertThrows(
-                NotFoundException.class,
-                () -> service.getRequestId(1, 99));
-        assertEquals("Can't find user id:99", exception.getMessage());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            requestRepository.save(ItemRequest.builder()
+                    .description("thing" + i)
+                    .requester(2L)
+                    .created(now.minusMinutes(i))
+                    .build());
+        }
+        List<ItemRequestDto> firstPage = service.get(user, 0, 2);
+        List<ItemRequestDto> secondPage = service.get(user, 2, 2);
+        assertEquals(List.of("thing0", "thing1"), descriptions(firstPage));
+        assertEquals(List.of("thing2", "thing3"), descriptions(secondPage));
+        assertEquals(List.of("thing1", "thing2"), descriptions(service.get(user, 1, 2)));
+        KeysetCursor cursor = new KeysetCursor(firstPage.get(1).getCreated(), firstPage.get(1).getId());
+        assertEquals(descriptions(secondPage), descriptions(service.get(user, cursor, 2)));
+        KeysetCursor lastCursor = KeysetCursor.decode(
+                new KeysetCursor(secondPage.get(1).getCreated(), secondPage.get(1).getId()).encode());
+        assertEquals(List.of("thing4"), descriptions(service.get(user, lastCursor, 2)));
+    }
+
+    private List<String> descriptions(List<ItemRequestDto> requests) {
+        return requests.stream()
+                .map(ItemRequestDto::getDescription)
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
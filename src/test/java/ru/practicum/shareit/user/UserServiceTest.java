@@ -2,6 +2,8 @@ package ru.practicum.shareit.user;
 
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,14 +17,18 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.exception.NotFoundException;
 
+import javax.persistence.EntityManagerFactory;
 import javax.validation.ValidationException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase
 @ExtendWith(MockitoExtension.class)
 @FieldDefaults(level = AccessLevel.PRIVATE)
@@ -32,6 +38,12 @@ class UserServiceTest {
     @Autowired
     UserService userService;
 
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     UserDto user;
 
     UserDto user1;
@@ -116,4 +128,41 @@ class UserServiceTest {
         assertThat(userService.findAll(), hasSize(1));
         assertThat(userService.findAll().get(0).getId(), is(user1.getId()));
     }
+
+    @Test
+    void updatingUserWithEmailOfAnotherUserShouldThrowException() {
+        UserDto newUser = UserDto.builder()
+                .id(user1.getId())
+                .email("john.doe@mail.com")
+                .build();
+        assertThrows(AlreadyExistsException.class,
+                () -> userService.update(newUser));
+    }
+
+    @Test
+    void checkingEmailShouldNotDependOnUserCount() {
+        long statementsWithTwoUsers = countStatements(() -> userService.create(UserDto.builder()
+                .name("bob")
+                .email("bob.lee@mail.com")
+                .build()));
+        List<User> users = IntStream.range(0, 1000)
+                .mapToObj(i -> User.builder()
+                        .name("user" + i)
+                        .email("user" + i + "@mail.com")
+                        .build())
+                .collect(Collectors.toList());
+        userRepository.saveAll(users);
+        long statementsWithManyUsers = countStatements(() -> userService.create(UserDto.builder()
+                .name("alice")
+                .email("alice.lee@mail.com")
+                .build()));
+        assertThat(statementsWithManyUsers, is(statementsWithTwoUsers));
+    }
+
+    private long countStatements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
 }
\ No newline at end of file